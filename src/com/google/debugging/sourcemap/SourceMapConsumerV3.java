@@ -247,6 +247,74 @@ public final class SourceMapConsumerV3 implements SourceMapConsumer,
     return getOriginalMappingForEntry(entries.get(index));
   }
 
+  /**
+   * Returns a new cursor for looking up a sequence of generated positions.
+   */
+  public Cursor newCursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Looks up original mappings for a sequence of generated positions, such
+   * as the positions of the mappings of another source map that is being
+   * composed with this one.
+   *
+   * Each lookup resumes from the entry found by the previous one when it
+   * moves forward along the same line, rather than searching the line again,
+   * and repeated lookups that land on the same entry share one
+   * OriginalMapping. A forward walk over the generated file therefore costs
+   * time linear in the number of mappings. A cursor is not thread safe.
+   */
+  public final class Cursor {
+    private int lastLine = -1;
+    private int lastColumn = -1;
+    private int lastIndex = -1;
+    private OriginalMapping lastMapping = null;
+
+    private Cursor() {}
+
+    /**
+     * Same as {@link SourceMapConsumerV3#getMappingForLine}.
+     */
+    public OriginalMapping getMappingForLine(int lineNumber, int column) {
+      // Normalize the line and column numbers to 0.
+      lineNumber--;
+      column--;
+
+      if (lineNumber < 0 || lineNumber >= lines.size()) {
+        return null;
+      }
+
+      Preconditions.checkState(column >= 0);
+
+      ArrayList<Entry> entries = lines.get(lineNumber);
+      if (entries == null || entries.get(0).getGeneratedColumn() > column) {
+        return getPreviousMapping(lineNumber);
+      }
+
+      int index;
+      if (lineNumber == lastLine && column >= lastColumn) {
+        index = lastIndex;
+        int last = entries.size() - 1;
+        while (index < last
+            && entries.get(index + 1).getGeneratedColumn() <= column) {
+          index++;
+        }
+      } else {
+        index = search(entries, column, 0, entries.size() - 1);
+        Preconditions.checkState(index >= 0, "unexpected:%s", index);
+      }
+
+      if (lineNumber != lastLine || index != lastIndex) {
+        lastMapping = getOriginalMappingForEntry(entries.get(index));
+      }
+      lastLine = lineNumber;
+      lastColumn = column;
+      lastIndex = index;
+      return lastMapping;
+    }
+  }
+
   @Override
   public Collection<String> getOriginalSources() {
     return Arrays.asList(sources);
@@ -25,19 +25,24 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.debugging.sourcemap.SourceMapSection;
 import com.google.javascript.jscomp.CompilerOptions.TweakProcessing;
 import com.google.javascript.jscomp.deps.ClosureBundler;
 import com.google.javascript.jscomp.deps.SourceCodeEscapers;
+import com.google.javascript.rhino.InputId;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.TokenStream;
 import com.google.protobuf.CodedOutputStream;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.File;
@@ -59,6 +64,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -172,6 +181,15 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
   private Map<String, String> parsedModuleWrappers = null;
 
+  /** Writes output files in the background, if enabled. */
+  private AsyncOutputWriter asyncOutputWriter = null;
+
+  /**
+   * The number of outputs per writer thread that may be waiting to be
+   * written before printing blocks.
+   */
+  private static final int MAX_PENDING_OUTPUTS_PER_WRITER = 4;
+
   static final String OUTPUT_MARKER = "%output%";
   private static final String OUTPUT_MARKER_JS_STRING = "%output|jsstring%";
 
@@ -373,6 +391,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
           files.getKey(), new SourceMapInput(sourceMap));
     }
     options.inputSourceMaps = inputSourceMaps.build();
+    options.applyInputSourceMaps = config.applyInputSourceMaps;
 
     if (!config.variableMapInputFile.isEmpty()) {
       options.inputVariableMap =
@@ -515,6 +534,20 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
    * compiler.
    */
   public final void run() {
+    int result = runAndGetExitStatus();
+
+    if (testMode) {
+      exitCodeReceiverForTesting.apply(result);
+    } else {
+      System.exit(result);
+    }
+  }
+
+  /**
+   * Runs the Compiler and returns its exit status, without exiting. Usage
+   * and internal errors are reported on the error stream.
+   */
+  final int runAndGetExitStatus() {
     int result = 0;
     int runs = 1;
     try {
@@ -522,18 +555,13 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
         result = doRun();
       }
     } catch (AbstractCommandLineRunner.FlagUsageException e) {
-      System.err.println(e.getMessage());
+      err.println(e.getMessage());
       result = -1;
     } catch (Throwable t) {
-      t.printStackTrace();
+      t.printStackTrace(err);
       result = -2;
     }
-
-    if (testMode) {
-      exitCodeReceiverForTesting.apply(result);
-    } else {
-      System.exit(result);
-    }
+    return result;
   }
 
   /**
@@ -865,13 +893,16 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
               compiler.getDegenerateModuleGraph().getAllModules()));
     }
 
-    String fileName = getModuleOutputFileName(m);
-    String baseName = new File(fileName).getName();
-    writeOutput(out, compiler, compiler.toSource(m),
-        parsedModuleWrappers.get(m.getName()).replace("%basename%", baseName),
+    writeOutput(out, compiler, compiler.toSource(m), getModuleWrapper(m),
         "%s", null);
   }
 
+  private String getModuleWrapper(JSModule m) {
+    String baseName = new File(getModuleOutputFileName(m)).getName();
+    return parsedModuleWrappers.get(m.getName())
+        .replace("%basename%", baseName);
+  }
+
   /**
    * Writes code to an output stream, optionally wrapping it in an arbitrary
    * wrapper that contains a placeholder where the code should be inserted.
@@ -880,6 +911,18 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       String wrapper, String codePlaceholder,
       @Nullable Function<String, String> escaper)
       throws IOException {
+    writeOutput(out, compiler == null ? null : compiler.getSourceMap(), code,
+        wrapper, codePlaceholder, escaper);
+  }
+
+  /**
+   * Writes code to an output stream, adjusting the offsets of the given
+   * source map (if any) for the wrapper prefix.
+   */
+  private static void writeOutput(Appendable out,
+      @Nullable SourceMap sourceMap, String code, String wrapper,
+      String codePlaceholder, @Nullable Function<String, String> escaper)
+      throws IOException {
     int pos = wrapper.indexOf(codePlaceholder);
     if (pos != -1) {
       String prefix = "";
@@ -901,8 +944,8 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
       // If we have a source map, adjust its offsets to match
       // the code WITHIN the wrapper.
-      if (compiler != null && compiler.getSourceMap() != null) {
-        compiler.getSourceMap().setWrapperPrefix(prefix);
+      if (sourceMap != null) {
+        sourceMap.setWrapperPrefix(prefix);
       }
 
     } else {
@@ -963,6 +1006,11 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
     setRunOptions(options);
 
+    if (!config.astOutputDir.isEmpty()) {
+      return writeSerializedAsts(
+          options, createSourceInputs(config.js, config.jsZip));
+    }
+
     boolean writeOutputToFile = !config.jsOutputFile.isEmpty();
     List<String> outputFileNames = new ArrayList<>();
     if (writeOutputToFile) {
@@ -1015,7 +1063,97 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       }
     }
 
-    return processResults(result, modules, options);
+    if (config.numOutputWriterThreads > 0 && !testMode) {
+      asyncOutputWriter = new AsyncOutputWriter(
+          new AsyncOutputWriter.StreamOpener() {
+            @Override
+            public OutputStream open(String fileName) throws IOException {
+              return filenameToOutputStream(fileName);
+            }
+          },
+          config.numOutputWriterThreads,
+          MAX_PENDING_OUTPUTS_PER_WRITER * config.numOutputWriterThreads);
+    }
+    try {
+      int exitCode = processResults(result, modules, options);
+      if (asyncOutputWriter != null) {
+        asyncOutputWriter.close();
+      }
+      return exitCode;
+    } finally {
+      if (asyncOutputWriter != null) {
+        asyncOutputWriter.abort();
+        asyncOutputWriter = null;
+      }
+    }
+  }
+
+  /**
+   * Parses each input, without compiling it, and writes its AST to the AST
+   * output directory, where a later compilation can read it with a
+   * {@link SerializedAst}. Only the parser and the AST preparation that
+   * follows it are run, so inputs can be parsed by separate workers.
+   *
+   * @return system exit status
+   */
+  private int writeSerializedAsts(B options, List<SourceFile> inputs)
+      throws FlagUsageException, IOException {
+    Map<SourceFile, File> astFiles = new LinkedHashMap<>();
+    Map<File, String> inputNames = new HashMap<>();
+    for (SourceFile file : inputs) {
+      File astFile = getSerializedAstFile(file.getName());
+      String otherName = inputNames.put(astFile, file.getName());
+      if (otherName != null) {
+        throw new FlagUsageException("The ASTs of inputs " + otherName
+            + " and " + file.getName() + " would both be written to "
+            + astFile.getPath());
+      }
+      astFiles.put(file, astFile);
+    }
+
+    compiler.init(ImmutableList.<SourceFile>of(), inputs, options);
+    for (SourceFile file : inputs) {
+      int errorCount = compiler.getErrorManager().getErrorCount();
+      CompilerInput input = compiler.getInput(new InputId(file.getName()));
+      Node root = input.getAstRoot(compiler);
+      if (compiler.getErrorManager().getErrorCount() > errorCount) {
+        input.clearAst();
+        continue;
+      }
+      File astFile = astFiles.get(file);
+      File astDir = astFile.getParentFile();
+      if (astDir != null) {
+        astDir.mkdirs();
+      }
+      try (OutputStream out = new BufferedOutputStream(
+          filenameToOutputStream(astFile.getPath()))) {
+        SerializedAst.writeAst(root, out);
+      }
+      // Only one AST is kept in memory at a time, however many inputs a
+      // worker parses.
+      input.clearAst();
+    }
+    compiler.getErrorManager().generateReport();
+    return Math.min(compiler.getErrorManager().getErrorCount(), 0x7f);
+  }
+
+  /**
+   * Returns the file the AST of an input is written to. It mirrors the
+   * normalized path of the input under the AST output directory, so inputs
+   * with absolute paths, or relative paths that leave the current directory,
+   * are rejected.
+   */
+  @VisibleForTesting
+  File getSerializedAstFile(String inputName) throws FlagUsageException {
+    String path =
+        Files.simplifyPath(inputName.replace(File.separatorChar, '/'));
+    if (new File(inputName).isAbsolute() || path.startsWith("/")
+        || path.equals(".") || path.equals("..") || path.startsWith("../")) {
+      throw new FlagUsageException("Cannot write the AST of input "
+          + inputName + " under --ast_output_dir. Inputs must be given "
+          + "as paths relative to, and inside of, the current directory.");
+    }
+    return new File(config.astOutputDir, path + ".ast");
   }
 
   /**
@@ -1063,6 +1201,8 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       }
     }
 
+    outputTracerJson();
+
     rootRelativePathsMap = constructRootRelativePathsMap();
 
     if (config.skipNormalOutputs) {
@@ -1113,13 +1253,30 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       escaper = getJavascriptEscaper();
     }
 
+    String code = config.numOutputThreads > 1
+        ? toSourceInParallel() : compiler.toSource();
     Appendable jsOutput = createDefaultOutput();
     writeOutput(
-        jsOutput, compiler, compiler.toSource(), config.outputWrapper,
+        jsOutput, compiler, code, config.outputWrapper,
         marker, escaper);
     closeAppendable(jsOutput);
   }
 
+  /**
+   * Prints the scripts of the output on a pool of worker threads, and
+   * joins them in order into the same code and source map as
+   * {@link Compiler#toSource()}.
+   */
+  private String toSourceInParallel() {
+    ExecutorService workers = CompilerExecutor.newWorkerPool(
+        config.numOutputThreads, "jscompiler-output");
+    try {
+      return compiler.toSource(workers);
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
   private void outputModuleBinaryAndSourceMaps(
       List<JSModule> modules, B options)
       throws FlagUsageException, IOException {
@@ -1127,6 +1284,11 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
         config.moduleWrapper, modules);
     maybeCreateDirsForPath(config.moduleOutputPathPrefix);
 
+    if (config.numOutputThreads > 1) {
+      outputModuleBinaryAndSourceMapsInParallel(modules, options);
+      return;
+    }
+
     // If the source map path is in fact a pattern for each
     // module, create a stream per-module. Otherwise, create
     // a single source map.
@@ -1162,6 +1324,122 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
   }
 
+  /**
+   * Prints the modules and serializes their source maps on a pool of worker
+   * threads, then writes the results out in module order.
+   *
+   * If a single source map is requested for all modules, the per-module maps
+   * are stitched into an index map with one section per module, laid out as
+   * if the module outputs were concatenated in order.
+   */
+  private void outputModuleBinaryAndSourceMapsInParallel(
+      List<JSModule> modules, B options) throws IOException {
+    final boolean createSourceMaps = options.sourceMapOutputPath != null;
+    compiler.parseDeferredJsDoc();
+    ExecutorService workers = CompilerExecutor.newWorkerPool(
+        Math.min(config.numOutputThreads, modules.size()), "jscompiler-output");
+    try {
+      List<Future<PrintedModule>> printedModules = new ArrayList<>();
+      for (final JSModule m : modules) {
+        printedModules.add(workers.submit(new Callable<PrintedModule>() {
+          @Override
+          public PrintedModule call() throws IOException {
+            return printModule(m, createSourceMaps);
+          }
+        }));
+      }
+
+      List<SourceMapSection> sections = new ArrayList<>();
+      int lineOffset = 0;
+      for (int i = 0; i < modules.size(); i++) {
+        JSModule m = modules.get(i);
+        PrintedModule printed = getPrintedModule(printedModules.get(i));
+        try (Writer writer =
+                 fileNameToLegacyOutputWriter(getModuleOutputFileName(m))) {
+          writer.append(printed.code);
+        }
+        if (!createSourceMaps) {
+          continue;
+        }
+        if (shouldGenerateMapPerModule(options)) {
+          try (Writer mapOut =
+                   fileNameToOutputWriter2(expandSourceMapPath(options, m))) {
+            mapOut.append(printed.sourceMap);
+          }
+        } else {
+          sections.add(
+              SourceMapSection.forMap(printed.sourceMap, lineOffset, 0));
+          lineOffset += countLines(printed.code);
+        }
+      }
+
+      if (createSourceMaps && !shouldGenerateMapPerModule(options)) {
+        try (Writer mapOut =
+                 fileNameToOutputWriter2(expandSourceMapPath(options, null))) {
+          compiler.getSourceMap().appendIndexMapTo(
+              mapOut, expandCommandLinePath("%outname%", null), sections);
+        }
+      }
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /**
+   * Prints a single module with its wrapper into memory, along with its
+   * serialized source map. This may be run concurrently for different
+   * modules.
+   */
+  private PrintedModule printModule(JSModule m, boolean createSourceMap)
+      throws IOException {
+    SourceMap sourceMap = createSourceMap ? compiler.newSourceMap() : null;
+    StringBuilder code = new StringBuilder();
+    writeOutput(code, sourceMap, compiler.toSource(m, sourceMap),
+        getModuleWrapper(m), "%s", null);
+
+    String serializedMap = null;
+    if (sourceMap != null) {
+      StringBuilder mapOut = new StringBuilder();
+      sourceMap.appendTo(mapOut, m.getName());
+      serializedMap = mapOut.toString();
+    }
+    return new PrintedModule(code.toString(), serializedMap);
+  }
+
+  private static PrintedModule getPrintedModule(Future<PrintedModule> future)
+      throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while printing modules", e);
+    } catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private static int countLines(String code) {
+    int lines = 0;
+    for (int i = 0; i < code.length(); i++) {
+      if (code.charAt(i) == '\n') {
+        lines++;
+      }
+    }
+    return lines;
+  }
+
+  /** The printed code and serialized source map of a single module. */
+  private static final class PrintedModule {
+    final String code;
+    @Nullable final String sourceMap;
+
+    PrintedModule(String code, @Nullable String sourceMap) {
+      this.code = code;
+      this.sourceMap = sourceMap;
+    }
+  }
+
   /**
    * Query the flag for the input charset, and return a Charset object
    * representing the selection.
@@ -1307,6 +1585,10 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     if (testMode) {
       return new StringWriter();
     }
+    if (asyncOutputWriter != null) {
+      return asyncOutputWriter.newWriter(fileName, legacyOutputCharset == null
+          ? UTF_8 : Charset.forName(legacyOutputCharset));
+    }
 
     return streamToLegacyOutputWriter(filenameToOutputStream(fileName));
   }
@@ -1322,6 +1604,10 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     if (testMode) {
       return new StringWriter();
     }
+    if (asyncOutputWriter != null) {
+      return asyncOutputWriter.newWriter(
+          fileName, outputCharset2 == null ? UTF_8 : outputCharset2);
+    }
 
     return streamToOutputWriter2(filenameToOutputStream(fileName));
   }
@@ -1462,11 +1748,11 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
 
     // Output the maps.
     if (variableMapOutputPath != null && compiler.getVariableMap() != null) {
-      compiler.getVariableMap().save(variableMapOutputPath);
+      writeNameMap(variableMapOutputPath, compiler.getVariableMap());
     }
 
     if (propertyMapOutputPath != null && compiler.getPropertyMap() != null) {
-      compiler.getPropertyMap().save(propertyMapOutputPath);
+      writeNameMap(propertyMapOutputPath, compiler.getPropertyMap());
     }
 
     if (functionInformationMapOutputPath != null
@@ -1479,6 +1765,18 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
   }
 
+  /**
+   * Writes a name map, on a writer thread if output is written
+   * asynchronously.
+   */
+  private void writeNameMap(String path, VariableMap map) throws IOException {
+    if (asyncOutputWriter != null) {
+      asyncOutputWriter.write(path, map.toBytes());
+    } else {
+      map.save(path);
+    }
+  }
+
   /**
    * Create a map of constant names to constant values from a textual
    * description of the map.
@@ -1623,6 +1921,18 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     }
   }
 
+  /**
+   * Creates a file containing the performance tracker's per-pass statistics
+   * in JSON serialization, if one was requested and the tracer is enabled.
+   */
+  private void outputTracerJson() throws IOException {
+    if (!config.tracerJsonOutput.isEmpty() && compiler.tracker != null) {
+      try (Writer out = fileNameToOutputWriter2(config.tracerJsonOutput)) {
+        out.append(compiler.tracker.toJson().toString());
+      }
+    }
+  }
+
   /**
    * Prints the current module graph as JSON.
    */
@@ -1857,6 +2167,16 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private boolean applyInputSourceMaps = false;
+
+    /**
+     * Whether to compose the generated source map with the input source maps.
+     */
+    CommandLineConfig setApplyInputSourceMaps(boolean applyInputSourceMaps) {
+      this.applyInputSourceMaps = applyInputSourceMaps;
+      return this;
+    }
+
     private String variableMapInputFile = "";
 
     /**
@@ -1988,6 +2308,29 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private int numOutputThreads = 1;
+
+    /**
+     * The number of threads used to print modules and their source maps.
+     * Values greater than one print the modules concurrently, or the
+     * scripts of a single output file when there are no modules.
+     */
+    CommandLineConfig setNumOutputThreads(int numOutputThreads) {
+      this.numOutputThreads = numOutputThreads;
+      return this;
+    }
+
+    private int numOutputWriterThreads = 0;
+
+    /**
+     * The number of background threads used to write output files. If zero,
+     * files are written on the compiler thread.
+     */
+    CommandLineConfig setNumOutputWriterThreads(int numOutputWriterThreads) {
+      this.numOutputWriterThreads = numOutputWriterThreads;
+      return this;
+    }
+
     private SourceMap.DetailLevel sourceMapDetailLevel =
         SourceMap.DetailLevel.ALL;
 
@@ -2169,6 +2512,17 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private String astOutputDir = "";
+
+    /**
+     * If not empty, the inputs are only parsed, and their ASTs are written to
+     * this directory instead of being compiled.
+     */
+    CommandLineConfig setAstOutputDir(String astOutputDir) {
+      this.astOutputDir = astOutputDir;
+      return this;
+    }
+
     private boolean skipNormalOutputs = false;
 
     /**
@@ -2250,6 +2604,17 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private String tracerJsonOutput = "";
+
+    /**
+     * The file to which the per-pass statistics collected with a tracer mode
+     * are written as JSON.
+     */
+    CommandLineConfig setTracerJsonOutput(String tracerJsonOutput) {
+      this.tracerJsonOutput = tracerJsonOutput;
+      return this;
+    }
+
     private boolean useNewTypeInference = false;
 
     CommandLineConfig setNewTypeInference(boolean useNewTypeInference) {
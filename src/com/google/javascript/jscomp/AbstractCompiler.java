@@ -294,7 +294,13 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
     /**
      * Externs files.
      */
-    EXTERNS
+    EXTERNS,
+
+    /**
+     * Minified or generated JavaScript, parsed without its JSDoc.
+     * @see CompilerOptions#setBulkParsedInputs
+     */
+    BULK
   }
 
   /**
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes output files on background threads, so that the compiler thread
+ * can go on printing while earlier outputs are flushed to disk.
+ *
+ * At most a fixed number of outputs may be waiting to be written; beyond
+ * that, queueing another one blocks until a writer thread catches up. The
+ * first I/O error is reported by the next call made on the compiler thread,
+ * and no further outputs are accepted after it.
+ *
+ * @see AbstractCommandLineRunner
+ */
+final class AsyncOutputWriter {
+
+  /** Opens the stream that an output file is written to. */
+  interface StreamOpener {
+    OutputStream open(String fileName) throws IOException;
+  }
+
+  private final StreamOpener opener;
+  private final ExecutorService writers;
+  private final Semaphore pendingOutputs;
+  private volatile IOException failure = null;
+
+  AsyncOutputWriter(
+      StreamOpener opener, int numThreads, int maxPendingOutputs) {
+    Preconditions.checkArgument(numThreads > 0);
+    Preconditions.checkArgument(maxPendingOutputs > 0);
+    this.opener = opener;
+    this.writers = CompilerExecutor.newWorkerPool(
+        numThreads, "jscompiler-writer");
+    this.pendingOutputs = new Semaphore(maxPendingOutputs);
+  }
+
+  /**
+   * Returns a writer that collects the contents of an output file in memory
+   * and queues the file to be written when it is closed.
+   */
+  Writer newWriter(final String fileName, final Charset charset) {
+    return new StringWriter() {
+      private boolean closed = false;
+
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          AsyncOutputWriter.this.write(fileName, getBuffer(), charset);
+        }
+      }
+    };
+  }
+
+  /**
+   * Queues the given contents to be written to a file, blocking while the
+   * queue is full.
+   */
+  void write(String fileName, CharSequence contents, final Charset charset)
+      throws IOException {
+    // Encode on the writer thread, so that the compiler thread only pays
+    // for copying the characters.
+    final String text = contents.toString();
+    queue(fileName, new Supplier<ByteBuffer>() {
+      @Override
+      public ByteBuffer get() {
+        return charset.encode(CharBuffer.wrap(text));
+      }
+    });
+  }
+
+  /**
+   * Queues the given bytes to be written to a file, blocking while the
+   * queue is full.
+   */
+  void write(String fileName, byte[] contents) throws IOException {
+    queue(fileName, Suppliers.ofInstance(ByteBuffer.wrap(contents)));
+  }
+
+  private void queue(final String fileName,
+      final Supplier<ByteBuffer> contents) throws IOException {
+    checkNoFailure();
+    try {
+      pendingOutputs.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing " + fileName, e);
+    }
+
+    // The permit is released by the writer thread once the file is written,
+    // or here if the file never reaches it.
+    boolean queued = false;
+    try {
+      checkNoFailure();
+      writers.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (failure == null) {
+              writeFile(fileName, contents.get());
+            }
+          } catch (IOException e) {
+            failure = e;
+          } catch (RuntimeException e) {
+            failure = new IOException(e);
+          } finally {
+            pendingOutputs.release();
+          }
+        }
+      });
+      queued = true;
+    } catch (RejectedExecutionException e) {
+      throw new IOException("Output writer is closed, cannot write "
+          + fileName, e);
+    } finally {
+      if (!queued) {
+        pendingOutputs.release();
+      }
+    }
+  }
+
+  private void writeFile(String fileName, ByteBuffer bytes)
+      throws IOException {
+    try (OutputStream out = opener.open(fileName)) {
+      if (out instanceof FileOutputStream) {
+        FileChannel channel = ((FileOutputStream) out).getChannel();
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+      } else {
+        out.write(bytes.array(), bytes.arrayOffset() + bytes.position(),
+            bytes.remaining());
+      }
+    }
+  }
+
+  /**
+   * Waits for all queued outputs to be written.
+   *
+   * @throws IOException if any of them failed.
+   */
+  void close() throws IOException {
+    writers.shutdown();
+    try {
+      while (!writers.awaitTermination(1, TimeUnit.SECONDS)) {
+        checkNoFailure();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing outputs", e);
+    }
+    checkNoFailure();
+  }
+
+  /**
+   * Stops the writer threads without waiting for queued outputs.
+   */
+  void abort() {
+    writers.shutdownNow();
+  }
+
+  private void checkNoFailure() throws IOException {
+    IOException e = failure;
+    if (e != null) {
+      abort();
+      throw new IOException("Failed to write output: " + e.getMessage(), e);
+    }
+  }
+}
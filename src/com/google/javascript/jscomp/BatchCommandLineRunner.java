@@ -0,0 +1,260 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many independent compilations in one JVM, to avoid paying for JVM
+ * startup and JIT warmup once per compilation.
+ *
+ * Each target is described by a flag file, in the format accepted by
+ * --flagfile. The targets are compiled concurrently on a fixed number of
+ * threads, each with its own {@link CommandLineRunner} and {@link Compiler}.
+ * The builtin externs are read once per environment and shared by all
+ * targets. For example:
+ *
+ * <pre>
+ * java -cp compiler.jar com.google.javascript.jscomp.BatchCommandLineRunner \
+ *     --num_threads=8 targets.txt
+ * </pre>
+ *
+ * where each line of targets.txt is the path of a flag file.
+ */
+@GwtIncompatible("Unnecessary")
+public final class BatchCommandLineRunner {
+
+  /** The outcome of compiling a single target. */
+  public static final class TargetResult {
+    private final String flagFile;
+    private final int exitStatus;
+    private final String output;
+    private final String errors;
+
+    TargetResult(String flagFile, int exitStatus, String output,
+        String errors) {
+      this.flagFile = flagFile;
+      this.exitStatus = exitStatus;
+      this.output = output;
+      this.errors = errors;
+    }
+
+    /** The flag file describing the target. */
+    public String getFlagFile() {
+      return flagFile;
+    }
+
+    /** The exit status the compiler would have exited with. */
+    public int getExitStatus() {
+      return exitStatus;
+    }
+
+    public boolean isSuccess() {
+      return exitStatus == 0;
+    }
+
+    /** Anything the compilation wrote to standard output. */
+    public String getOutput() {
+      return output;
+    }
+
+    /** Errors, warnings and usage messages for the target. */
+    public String getErrors() {
+      return errors;
+    }
+  }
+
+  private final int numThreads;
+
+  /** The builtin externs for each environment, shared by all targets. */
+  private final ConcurrentMap<CompilerOptions.Environment,
+      ImmutableList<SourceFile>> builtinExterns = new ConcurrentHashMap<>();
+
+  public BatchCommandLineRunner(int numThreads) {
+    Preconditions.checkArgument(numThreads > 0);
+    this.numThreads = numThreads;
+  }
+
+  /**
+   * Compiles each target described by the given flag files and returns their
+   * results, in the same order.
+   */
+  public List<TargetResult> compile(List<String> flagFiles) {
+    ExecutorService workers = CompilerExecutor.newWorkerPool(
+        numThreads, "jscompiler-batch");
+    try {
+      List<Future<TargetResult>> futures = new ArrayList<>();
+      for (final String flagFile : flagFiles) {
+        futures.add(workers.submit(new Callable<TargetResult>() {
+          @Override
+          public TargetResult call() {
+            return compileTarget(flagFile);
+          }
+        }));
+      }
+
+      List<TargetResult> results = new ArrayList<>();
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          results.add(futures.get(i).get());
+        } catch (ExecutionException e) {
+          // A crash in one target does not lose the results of the others.
+          results.add(new TargetResult(flagFiles.get(i), -1, "",
+              Throwables.getStackTraceAsString(e.getCause())));
+        }
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw Throwables.propagate(e);
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  private TargetResult compileTarget(String flagFile) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    PrintStream outStream = newPrintStream(out);
+    PrintStream errStream = newPrintStream(err);
+
+    TargetRunner runner = new TargetRunner(
+        new String[] {"--flagfile=" + flagFile}, outStream, errStream);
+    int exitStatus;
+    if (runner.shouldRunCompiler()) {
+      exitStatus = runner.runAndGetExitStatus();
+    } else {
+      exitStatus = runner.hasErrors() ? -1 : 0;
+    }
+
+    outStream.flush();
+    errStream.flush();
+    return new TargetResult(flagFile, exitStatus,
+        new String(out.toByteArray(), UTF_8),
+        new String(err.toByteArray(), UTF_8));
+  }
+
+  private static PrintStream newPrintStream(ByteArrayOutputStream out) {
+    try {
+      return new PrintStream(out, true, UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private List<SourceFile> getBuiltinExterns(CompilerOptions options)
+      throws IOException {
+    CompilerOptions.Environment env = options.getEnvironment();
+    ImmutableList<SourceFile> externs = builtinExterns.get(env);
+    if (externs == null) {
+      externs = ImmutableList.copyOf(
+          CommandLineRunner.getBuiltinExterns(options));
+      ImmutableList<SourceFile> existing =
+          builtinExterns.putIfAbsent(env, externs);
+      if (existing != null) {
+        externs = existing;
+      }
+    }
+    return new ArrayList<>(externs);
+  }
+
+  /** A runner for one target, which uses the shared builtin externs. */
+  private final class TargetRunner extends CommandLineRunner {
+    TargetRunner(String[] args, PrintStream out, PrintStream err) {
+      super(args, out, err);
+    }
+
+    @Override
+    List<SourceFile> loadBuiltinExterns(CompilerOptions options)
+        throws IOException {
+      return getBuiltinExterns(options);
+    }
+  }
+
+  private static class Flags {
+    @Option(name = "--num_threads",
+        usage = "The number of targets to compile concurrently.")
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    @Argument
+    private List<String> targetLists = new ArrayList<>();
+  }
+
+  /**
+   * Compiles the targets listed in the given files, one flag file per line,
+   * and exits with a non-zero status if any of them failed.
+   */
+  public static void main(String[] args) throws IOException {
+    Flags flags = new Flags();
+    CmdLineParser parser = new CmdLineParser(flags);
+    try {
+      parser.parseArgument(args);
+    } catch (CmdLineException e) {
+      System.err.println(e.getMessage());
+      parser.printUsage(System.err);
+      System.exit(-1);
+    }
+
+    List<String> flagFiles = new ArrayList<>();
+    for (String targetList : flags.targetLists) {
+      for (String line : Files.readLines(new File(targetList), UTF_8)) {
+        if (!line.trim().isEmpty()) {
+          flagFiles.add(line.trim());
+        }
+      }
+    }
+
+    int failures = 0;
+    for (TargetResult result :
+         new BatchCommandLineRunner(flags.numThreads).compile(flagFiles)) {
+      System.out.print(result.getOutput());
+      System.err.print(result.getErrors());
+      if (!result.isSuccess()) {
+        failures++;
+      }
+      System.err.println(result.getFlagFile() + ": "
+          + (result.isSuccess()
+              ? "OK" : "FAILED (exit status " + result.getExitStatus() + ")"));
+    }
+    System.exit(failures == 0 ? 0 : 1);
+  }
+}
@@ -256,7 +256,7 @@ abstract class CodeConsumer {
       long mantissa = value;
       int exp = 0;
       if (Math.abs(x) >= 100) {
-        while (mantissa / 10 * ((long) Math.pow(10, exp + 1)) == value) {
+        while (mantissa % 10 == 0) {
           mantissa /= 10;
           exp++;
         }
@@ -275,11 +275,29 @@ abstract class CodeConsumer {
         }
       }
     } else {
-      addConstant(String.valueOf(x).replace(".0E", "E").replaceFirst(
-          "^(-?)0\\.", "$1."));
+      addConstant(formatDouble(x));
     }
   }
 
+  /**
+   * Formats a number that is not an integer the way Java does, but dropping
+   * a leading zero (0.5 is .5) and a zero fraction before an exponent
+   * (1.0E-9 is 1E-9).
+   */
+  private static String formatDouble(double x) {
+    String s = String.valueOf(x);
+    int exponent = s.indexOf(".0E");
+    if (exponent != -1) {
+      s = s.substring(0, exponent) + s.substring(exponent + 2);
+    }
+    if (s.startsWith("0.")) {
+      return s.substring(1);
+    } else if (s.startsWith("-0.")) {
+      return "-" + s.substring(2);
+    }
+    return s;
+  }
+
   void addConstant(String newcode) {
     add(newcode);
   }
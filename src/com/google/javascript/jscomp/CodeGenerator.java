@@ -36,6 +36,15 @@ class CodeGenerator {
   private static final String LT_ESCAPED = "\\x3c";
   private static final String GT_ESCAPED = "\\x3e";
 
+  // The printable ASCII characters that are never escaped in a string or
+  // regular expression literal, whatever the quote character.
+  private static final boolean[] PLAIN_CHARS = new boolean[0x7f];
+  static {
+    for (char c = 0x20; c < 0x7f; c++) {
+      PLAIN_CHARS[c] = "\\\"'=&<>".indexOf(c) == -1;
+    }
+  }
+
   // A memoizer for formatting strings as JS strings.
   private final Map<String, String> escapedJsStrings = new HashMap<>();
 
@@ -1691,9 +1700,20 @@ class CodeGenerator {
       OutputCharsetEncoder outputCharsetEncoder,
       boolean useSlashV,
       boolean isRegexp) {
-    StringBuilder sb = new StringBuilder(s.length() + 2);
-    sb.append(quote);
-    for (int i = 0; i < s.length(); i++) {
+    // Most literals need no escaping at all, so look for the first character
+    // that might before doing any per-character work.
+    int length = s.length();
+    int plain = 0;
+    while (plain < length && isPlainChar(s.charAt(plain))) {
+      plain++;
+    }
+    if (plain == length) {
+      return quote + s + quote;
+    }
+
+    StringBuilder sb = new StringBuilder(length + 16);
+    sb.append(quote).append(s, 0, plain);
+    for (int i = plain; i < length; i++) {
       char c = s.charAt(i);
       switch (c) {
         case '\0': sb.append("\\x00"); break;
@@ -1798,6 +1818,10 @@ class CodeGenerator {
     return sb.toString();
   }
 
+  private static boolean isPlainChar(char c) {
+    return c < 0x7f && PLAIN_CHARS[c];
+  }
+
   static String identifierEscape(String s) {
     // First check if escaping is needed at all -- in most cases it isn't.
     if (NodeUtil.isLatin(s)) {
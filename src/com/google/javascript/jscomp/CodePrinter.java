@@ -52,16 +52,21 @@ public final class CodePrinter {
     private final List<Mapping> allMappings;
     private final boolean createSrcMap;
     private final SourceMap.DetailLevel sourceMapDetailLevel;
-    protected final StringBuilder code = new StringBuilder(1024);
+    protected final StringBuilder code;
+    // The index in the buffer at which this printer's code starts.
+    protected final int start;
     protected final int lineLengthThreshold;
     protected int lineLength = 0;
     protected int lineIndex = 0;
 
     MappedCodePrinter(
+        StringBuilder code,
         int lineLengthThreshold,
         boolean createSrcMap,
         SourceMap.DetailLevel sourceMapDetailLevel) {
       Preconditions.checkState(sourceMapDetailLevel != null);
+      this.code = code;
+      this.start = code.length();
       this.lineLengthThreshold = lineLengthThreshold <= 0 ? Integer.MAX_VALUE :
         lineLengthThreshold;
       this.createSrcMap = createSrcMap;
@@ -202,12 +207,12 @@ public final class CodePrinter {
     }
 
     public String getCode() {
-      return code.toString();
+      return code.substring(start);
     }
 
     @Override
     char getLastChar() {
-      return (code.length() > 0) ? code.charAt(code.length() - 1) : '\0';
+      return (code.length() > start) ? code.charAt(code.length() - 1) : '\0';
     }
 
     protected final int getCurrentCharIndex() {
@@ -234,10 +239,11 @@ public final class CodePrinter {
      *     into the source map.
      */
     private PrettyCodePrinter(
+        StringBuilder code,
         int lineLengthThreshold,
         boolean createSourceMap,
         SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSourceMap, sourceMapDetailLevel);
+      super(code, lineLengthThreshold, createSourceMap, sourceMapDetailLevel);
     }
 
     /**
@@ -427,8 +433,10 @@ public final class CodePrinter {
 
     private final boolean lineBreak;
     private final boolean preferLineBreakAtEndOfFile;
-    private int lineStartPosition = 0;
-    private int preferredBreakPosition = 0;
+    // Positions are indices into the whole buffer, which may hold code
+    // printed before this printer's.
+    private int lineStartPosition;
+    private int preferredBreakPosition;
     private int prevCutPosition = 0;
     private int prevLineStartPosition = 0;
 
@@ -441,10 +449,12 @@ public final class CodePrinter {
    * @param sourceMapDetailLevel A filter to control which nodes get mapped into
    *     the source map.
    */
-    private CompactCodePrinter(boolean lineBreak,
+    private CompactCodePrinter(StringBuilder code, boolean lineBreak,
         boolean preferLineBreakAtEndOfFile, int lineLengthThreshold,
         boolean createSrcMap, SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSrcMap, sourceMapDetailLevel);
+      super(code, lineLengthThreshold, createSrcMap, sourceMapDetailLevel);
+      this.lineStartPosition = start;
+      this.preferredBreakPosition = start;
       this.lineBreak = lineBreak;
       this.preferLineBreakAtEndOfFile = preferLineBreakAtEndOfFile;
     }
@@ -546,7 +556,7 @@ public final class CodePrinter {
         code.setCharAt(prevCutPosition, ' ');
         lineStartPosition = prevLineStartPosition;
         lineLength = code.length() - lineStartPosition;
-        reportLineCut(lineIndex, prevCutPosition + 1, false);
+        reportLineCut(lineIndex, prevCutPosition - start + 1, false);
         lineIndex--;
         prevCutPosition = 0;
         prevLineStartPosition = 0;
@@ -661,9 +671,80 @@ public final class CodePrinter {
             "Cannot build without root node being specified");
       }
 
-      return toSource(root, Format.fromOptions(options, outputTypes, prettyPrint), options,
+      StringBuilder code = new StringBuilder(estimateLength(root, prettyPrint));
+      return toSource(code, root, Format.fromOptions(options, outputTypes, prettyPrint), options,
           sourceMap, tagAsStrict, lineBreak, codeGeneratorFactory);
     }
+
+    /**
+     * Generates the source code and appends it to the given buffer. Source
+     * map positions are relative to the end of the buffer's existing text.
+     */
+    void build(StringBuilder code) {
+      Preconditions.checkState(root != null,
+          "Cannot build without root node being specified");
+      MappedCodePrinter mcp = print(code, root,
+          Format.fromOptions(options, outputTypes, prettyPrint), options,
+          sourceMap != null, tagAsStrict, lineBreak, codeGeneratorFactory);
+      if (sourceMap != null) {
+        mcp.generateSourceMap(sourceMap);
+      }
+    }
+
+    /**
+     * Generates the source code without writing to the source map. If a
+     * source map is set, the mappings are kept, relative to the start of the
+     * code, until {@link PrintedCode#generateSourceMap} adds them. This lets
+     * code be printed on another thread from the one that owns the map.
+     */
+    PrintedCode buildPrintedCode() {
+      Preconditions.checkState(root != null,
+          "Cannot build without root node being specified");
+      StringBuilder code = new StringBuilder(estimateLength(root, prettyPrint));
+      return new PrintedCode(print(code, root,
+          Format.fromOptions(options, outputTypes, prettyPrint), options,
+          sourceMap != null, tagAsStrict, lineBreak, codeGeneratorFactory));
+    }
+  }
+
+  /**
+   * Code printed by {@link Builder#buildPrintedCode}, with the source
+   * mappings that have yet to be added to a source map.
+   */
+  static final class PrintedCode {
+    private final MappedCodePrinter printer;
+
+    private PrintedCode(MappedCodePrinter printer) {
+      this.printer = printer;
+    }
+
+    CharSequence getCode() {
+      return printer.code;
+    }
+
+    /**
+     * Adds the mappings of the code to the source map, offset by the map's
+     * starting position.
+     */
+    void generateSourceMap(SourceMap sourceMap) {
+      printer.generateSourceMap(sourceMap);
+    }
+  }
+
+  // Slightly more than the average number of characters printed per node,
+  // so that a buffer of the estimated length rarely has to grow.
+  // Indentation and spacing make pretty printed code longer.
+  private static final int COMPACT_CHARS_PER_NODE = 5;
+  private static final int PRETTY_CHARS_PER_NODE = 7;
+
+  /**
+   * Estimates the length of the code printed for a tree from its node
+   * count, so that the output buffer rarely has to grow.
+   */
+  static int estimateLength(Node root, boolean prettyPrint) {
+    long length = (long) NodeUtil.countAstSize(root)
+        * (prettyPrint ? PRETTY_CHARS_PER_NODE : COMPACT_CHARS_PER_NODE);
+    return (int) Math.min(length, Integer.MAX_VALUE / 2);
   }
 
   enum Format {
@@ -685,21 +766,41 @@ public final class CodePrinter {
   /**
    * Converts a tree to JS code
    */
-  private static String toSource(Node root, Format outputFormat,
+  private static String toSource(StringBuilder code, Node root, Format outputFormat,
       CompilerOptions options, SourceMap sourceMap, boolean tagAsStrict, boolean lineBreak,
       CodeGeneratorFactory codeGeneratorFactory) {
+    boolean createSourceMap = (sourceMap != null);
+    MappedCodePrinter mcp = print(code, root, outputFormat, options,
+        createSourceMap, tagAsStrict, lineBreak, codeGeneratorFactory);
+
+    if (createSourceMap) {
+      mcp.generateSourceMap(sourceMap);
+    }
+
+    return mcp.getCode();
+  }
+
+  /**
+   * Prints a tree into the given buffer, returning the printer that holds
+   * the source mappings.
+   */
+  private static MappedCodePrinter print(StringBuilder code, Node root,
+      Format outputFormat, CompilerOptions options, boolean createSourceMap,
+      boolean tagAsStrict, boolean lineBreak,
+      CodeGeneratorFactory codeGeneratorFactory) {
     Preconditions.checkState(options.sourceMapDetailLevel != null);
 
-    boolean createSourceMap = (sourceMap != null);
     MappedCodePrinter mcp =
         outputFormat == Format.COMPACT
         ? new CompactCodePrinter(
+            code,
             lineBreak,
             options.preferLineBreakAtEndOfFile,
             options.lineLengthThreshold,
             createSourceMap,
             options.sourceMapDetailLevel)
         : new PrettyCodePrinter(
+            code,
             options.lineLengthThreshold,
             createSourceMap,
             options.sourceMapDetailLevel);
@@ -711,13 +812,6 @@ public final class CodePrinter {
 
     cg.add(root);
     mcp.endFile();
-
-    String code = mcp.getCode();
-
-    if (createSourceMap) {
-      mcp.generateSourceMap(sourceMap);
-    }
-
-    return code;
+    return mcp;
   }
 }
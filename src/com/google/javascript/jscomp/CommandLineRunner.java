@@ -60,7 +60,6 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -129,11 +128,10 @@ public class CommandLineRunner extends
   // I don't really care about unchecked warnings in this class.
   @SuppressWarnings("unchecked")
   private static class Flags {
-    // Some clients run a few copies of the compiler through CommandLineRunner
-    // on parallel threads (thankfully, with the same flags),
-    // so the access to |guardLevels| should be at least synchronized.
-    private static List<GuardLevel> guardLevels =
-        Collections.synchronizedList(new ArrayList<CommandLineRunner.GuardLevel>());
+    // The warning guard flags, in the order they were given. These are kept
+    // per instance, as clients may run several copies of the compiler
+    // through CommandLineRunner on parallel threads with different flags.
+    private final List<GuardLevel> guardLevels = new ArrayList<>();
 
     @Option(name = "--help",
         hidden = true,
@@ -279,6 +277,46 @@ public class CommandLineRunner extends
         + "will be created as needed. Use with --module")
     private String moduleOutputPathPrefix = "./";
 
+    @Option(name = "--num_output_threads",
+        hidden = true,
+        usage = "The number of threads used to print the output and its "
+        + "source maps. When greater than 1, modules are printed "
+        + "concurrently, and a source map shared by all modules is written "
+        + "as an index map with one section per module. Without --module, "
+        + "the input files of the single output are printed concurrently")
+    private int numOutputThreads = 1;
+
+    @Option(name = "--ast_output_dir",
+        hidden = true,
+        usage = "If set, the inputs are parsed but not compiled, and the AST "
+        + "of each one is written to <dir>/<input path>.ast, for a later "
+        + "compilation to read instead of parsing the input again. Parse "
+        + "errors are reported as usual.")
+    private String astOutputDir = "";
+
+    @Option(name = "--num_output_writer_threads",
+        hidden = true,
+        usage = "The number of background threads used to write output "
+        + "files, so that printing can continue while earlier outputs are "
+        + "written. If 0, outputs are written by the compiler thread.")
+    private int numOutputWriterThreads = 0;
+
+    @Option(name = "--num_cfg_prefetch_threads",
+        hidden = true,
+        usage = "The number of threads used to build the control flow graphs "
+        + "of function scopes ahead of type inference. Only the graphs are "
+        + "built in parallel; type inference itself still runs on one thread, "
+        + "so its results are unaffected.")
+    private int numCfgPrefetchThreads = 1;
+
+    @Option(name = "--bulk_parse_js",
+        hidden = true,
+        usage = "A JavaScript input that is minified or generated code. Its "
+        + "comments and JSDoc are skipped so that it parses faster; "
+        + "@license and @preserve comments are kept. You may specify "
+        + "multiple.")
+    private List<String> bulkParseJs = new ArrayList<>();
+
     @Option(name = "--create_source_map",
         hidden = true,
         usage = "If specified, a source map file mapping the generated " +
@@ -306,6 +344,13 @@ public class CommandLineRunner extends
         "(i.e. input-file-path|input-source-map)")
     private List<String> sourceMapInputs = new ArrayList<>();
 
+    @Option(name = "--apply_input_source_maps",
+        hidden = true,
+        usage = "Whether to compose the generated source map with the source "
+        + "maps given by --source_map_input, so that it points at the files "
+        + "the inputs were generated from.")
+    private boolean applyInputSourceMaps = false;
+
     // Used to define the flag, values are stored by the handler.
     @SuppressWarnings("unused")
     @Option(name = "--jscomp_error",
@@ -571,6 +616,13 @@ public class CommandLineRunner extends
     private CompilerOptions.TracerMode tracerMode =
         CompilerOptions.TracerMode.OFF;
 
+    @Option(name = "--tracer_json_output",
+        hidden = true,
+        usage = "If set, the statistics of each compiler pass collected with "
+        + "--tracer_mode are also written to this file as JSON, including "
+        + "the AST nodes removed and the memory allocated by each pass")
+    private String tracerJsonOutput = "";
+
     @Option(name = "--new_type_inf",
         hidden = true,
         usage = "Checks for type errors using the new type inference algorithm.")
@@ -618,7 +670,20 @@ public class CommandLineRunner extends
             CompilationLevel.ADVANCED_OPTIMIZATIONS);
 
     Flags() {
-      parser = new CmdLineParser(this);
+      parser = new FlagsParser(this);
+    }
+
+    /**
+     * A parser that lets the warning guard option handlers find the Flags
+     * instance they are parsing into.
+     */
+    private static final class FlagsParser extends CmdLineParser {
+      private final Flags flags;
+
+      FlagsParser(Flags flags) {
+        super(flags);
+        this.flags = flags;
+      }
     }
 
     /**
@@ -765,7 +830,7 @@ public class CommandLineRunner extends
       public WarningGuardErrorOptionHandler(
           CmdLineParser parser, OptionDef option,
           Setter<? super String> setter) {
-        super(parser, option, new WarningGuardSetter(setter, CheckLevel.ERROR));
+        super(parser, option, new WarningGuardSetter(parser, setter, CheckLevel.ERROR));
       }
     }
 
@@ -775,7 +840,7 @@ public class CommandLineRunner extends
           CmdLineParser parser, OptionDef option,
           Setter<? super String> setter) {
         super(parser, option,
-            new WarningGuardSetter(setter, CheckLevel.WARNING));
+            new WarningGuardSetter(parser, setter, CheckLevel.WARNING));
       }
     }
 
@@ -784,16 +849,18 @@ public class CommandLineRunner extends
       public WarningGuardOffOptionHandler(
           CmdLineParser parser, OptionDef option,
           Setter<? super String> setter) {
-        super(parser, option, new WarningGuardSetter(setter, CheckLevel.OFF));
+        super(parser, option, new WarningGuardSetter(parser, setter, CheckLevel.OFF));
       }
     }
 
     private static class WarningGuardSetter implements Setter<String> {
+      private final CmdLineParser parser;
       private final Setter<? super String> proxy;
       private final CheckLevel level;
 
-      private WarningGuardSetter(
+      private WarningGuardSetter(CmdLineParser parser,
           Setter<? super String> proxy, CheckLevel level) {
+        this.parser = parser;
         this.proxy = proxy;
         this.level = level;
       }
@@ -808,7 +875,8 @@ public class CommandLineRunner extends
 
       @Override public void addValue(String value) throws CmdLineException {
         proxy.addValue(value);
-        guardLevels.add(new GuardLevel(value, level));
+        ((FlagsParser) parser).flags.guardLevels.add(
+            new GuardLevel(value, level));
       }
 
       @Override public FieldSetter asFieldSetter() {
@@ -820,7 +888,7 @@ public class CommandLineRunner extends
       }
     }
 
-    public static WarningGuardSpec getWarningGuardSpec() {
+    WarningGuardSpec getWarningGuardSpec() {
       WarningGuardSpec spec = new WarningGuardSpec();
       for (GuardLevel guardLevel : guardLevels) {
         spec.add(guardLevel.level, guardLevel.name);
@@ -981,10 +1049,10 @@ public class CommandLineRunner extends
 
     // Command-line warning levels should override flag file settings,
     // which means they should go last.
-    List<GuardLevel> previous = new ArrayList<>(Flags.guardLevels);
-    Flags.guardLevels.clear();
+    List<GuardLevel> previous = new ArrayList<>(flags.guardLevels);
+    flags.guardLevels.clear();
     flags.parse(tokens);
-    Flags.guardLevels.addAll(previous);
+    flags.guardLevels.addAll(previous);
 
     // Currently we are not supporting this (prevent direct/indirect loops)
     if (!flags.flagFile.isEmpty()) {
@@ -998,7 +1066,7 @@ public class CommandLineRunner extends
     errorStream = err;
     List<String> processedArgs = processArgs(args);
 
-    Flags.guardLevels.clear();
+    flags.guardLevels.clear();
 
     List<String> jsFiles = null;
     List<LocationMapping> mappings = null;
@@ -1095,11 +1163,15 @@ public class CommandLineRunner extends
           .setOutputWrapper(flags.outputWrapper)
           .setModuleWrapper(flags.moduleWrapper)
           .setModuleOutputPathPrefix(flags.moduleOutputPathPrefix)
+          .setNumOutputThreads(flags.numOutputThreads)
+          .setNumOutputWriterThreads(flags.numOutputWriterThreads)
+          .setAstOutputDir(flags.astOutputDir)
           .setCreateSourceMap(flags.createSourceMap)
           .setSourceMapFormat(flags.sourceMapFormat)
           .setSourceMapLocationMappings(mappings)
           .setSourceMapInputFiles(sourceMapInputs)
-          .setWarningGuardSpec(Flags.getWarningGuardSpec())
+          .setApplyInputSourceMaps(flags.applyInputSourceMaps)
+          .setWarningGuardSpec(flags.getWarningGuardSpec())
           .setDefine(flags.define)
           .setCharset(flags.charset)
           .setManageClosureDependencies(flags.manageClosureDependencies)
@@ -1115,6 +1187,7 @@ public class CommandLineRunner extends
           .setWarningsWhitelistFile(flags.warningsWhitelistFile)
           .setAngularPass(flags.angularPass)
           .setTracerMode(flags.tracerMode)
+          .setTracerJsonOutput(flags.tracerJsonOutput)
           .setInstrumentationTemplateFile(flags.instrumentationFile)
           .setNewTypeInference(flags.useNewTypeInference);
     }
@@ -1149,6 +1222,10 @@ public class CommandLineRunner extends
 
     options.setChecksOnly(flags.checksOnly);
 
+    options.setNumCfgPrefetchThreads(flags.numCfgPrefetchThreads);
+
+    options.setBulkParsedInputs(flags.bulkParseJs);
+
     if (flags.useTypesForOptimization) {
       level.setTypeBasedOptimizationOptions(options);
     }
@@ -1241,12 +1318,20 @@ public class CommandLineRunner extends
     if (isInTestMode()) {
       return externs;
     } else {
-      List<SourceFile> builtinExterns = getBuiltinExterns(options);
+      List<SourceFile> builtinExterns = loadBuiltinExterns(options);
       builtinExterns.addAll(externs);
       return builtinExterns;
     }
   }
 
+  /**
+   * Returns a mutable list of the builtin externs for the given options.
+   */
+  List<SourceFile> loadBuiltinExterns(CompilerOptions options)
+      throws IOException {
+    return getBuiltinExterns(options);
+  }
+
   private ImmutableList<ConformanceConfig> loadConformanceConfigs(List<String> configPaths) {
     ImmutableList.Builder<ConformanceConfig> configs =
         ImmutableList.builder();
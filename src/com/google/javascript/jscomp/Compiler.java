@@ -26,6 +26,8 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.debugging.sourcemap.SourceMapConsumerV3;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.jscomp.CompilerOptions.DevMode;
 import com.google.javascript.jscomp.JSModuleGraph.MissingModuleException;
@@ -67,10 +69,14 @@ import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 
+import javax.annotation.Nullable;
+
 /**
  * Compiler (and the other classes in this package) does the following:
  * <ul>
@@ -131,6 +137,10 @@ public class Compiler extends AbstractCompiler {
   // error manager to which error management is delegated
   private ErrorManager errorManager;
 
+  // Whether the error manager was created by the compiler, rather than
+  // given to it.
+  private boolean hasDefaultErrorManager = false;
+
   // Warnings guard for filtering warnings.
   private WarningsGuard warningsGuard;
 
@@ -195,6 +205,7 @@ public class Compiler extends AbstractCompiler {
   private JSTypeRegistry typeRegistry;
   private Config parserConfig = null;
   private Config externsParserConfig = null;
+  private Config bulkParserConfig = null;
 
   private ReverseAbstractInterpreter abstractInterpreter;
   private TypeValidator typeValidator;
@@ -245,6 +256,13 @@ public class Compiler extends AbstractCompiler {
 
   private Set<String> externProperties = null;
 
+  /**
+   * Pristine copies of the externs parsed since the compiler was first reset,
+   * keyed by file name. Null until then, so that one-off compiles do not pay
+   * for the copies.
+   */
+  private Map<String, ParsedExtern> parsedExterns = null;
+
   private static final Joiner pathJoiner = Joiner.on(File.separator);
 
   /**
@@ -313,6 +331,7 @@ public class Compiler extends AbstractCompiler {
         printer.setSummaryDetailLevel(options.summaryDetailLevel);
         setErrorManager(printer);
       }
+      hasDefaultErrorManager = true;
     }
 
     reconcileOptionsWithGuards();
@@ -404,7 +423,7 @@ public class Compiler extends AbstractCompiler {
     checkFirstModule(modules);
     fillEmptyModules(modules);
 
-    this.externs = makeCompilerInput(externs, true);
+    this.externs = makeExternInputs(externs);
 
     // Generate the module graph, and report any errors in the module
     // specification as errors.
@@ -437,9 +456,21 @@ public class Compiler extends AbstractCompiler {
   private void initBasedOnOptions() {
     // Create the source map if necessary.
     if (options.sourceMapOutputPath != null) {
-      sourceMap = options.sourceMapFormat.getInstance();
-      sourceMap.setPrefixMappings(options.sourceMapLocationMappings);
+      sourceMap = newSourceMap();
+    }
+  }
+
+  /**
+   * Creates an empty source map using the format and location mappings
+   * from the compiler options.
+   */
+  SourceMap newSourceMap() {
+    SourceMap map = options.sourceMapFormat.getInstance();
+    map.setPrefixMappings(options.sourceMapLocationMappings);
+    if (options.applyInputSourceMaps) {
+      map.setSourceFileMapping(new InputSourceMapping());
     }
+    return map;
   }
 
   private <T extends SourceFile> List<CompilerInput> makeCompilerInput(
@@ -451,6 +482,175 @@ public class Compiler extends AbstractCompiler {
     return inputs;
   }
 
+  private <T extends SourceFile> List<CompilerInput> makeExternInputs(
+      List<T> files) {
+    if (parsedExterns == null || isIdeMode()) {
+      return makeCompilerInput(files, true);
+    }
+    List<CompilerInput> inputs = new ArrayList<>(files.size());
+    for (T file : files) {
+      ParsedExtern parsed = parsedExterns.get(file.getName());
+      if (parsed != null && parsed.isCopyOf(file)) {
+        inputs.add(new CompilerInput(new ParsedExternAst(parsed), true));
+      } else {
+        inputs.add(new CompilerInput(file, true));
+      }
+    }
+    return inputs;
+  }
+
+  /**
+   * Returns the compiler to the state it had before its first compile, so
+   * that it can run another one. The options and the type registry are
+   * kept, as is an error manager given to the compiler; one that the
+   * compiler created is replaced. The externs parsed from now on are kept as
+   * well, and a later compile with an extern of the same name and contents
+   * uses a copy of its AST instead of parsing it again.
+   */
+  public void reset() {
+    if (parsedExterns == null) {
+      parsedExterns = new HashMap<>();
+    }
+
+    passes = null;
+    externs = null;
+    modules = null;
+    moduleGraph = null;
+    inputs = null;
+    inputsById = null;
+    if (hasDefaultErrorManager) {
+      errorManager = null;
+      hasDefaultErrorManager = false;
+    }
+    warningsGuard = null;
+    injectedLibraries.clear();
+    externsRoot = null;
+    jsRoot = null;
+    externAndJsRoot = null;
+    commentsPerFile = new HashMap<>();
+    sourceMap = null;
+    externExports = null;
+    uniqueNameId = 0;
+    hasRegExpGlobalReferences = true;
+    functionInformationMap = null;
+    debugLog.setLength(0);
+    parserConfig = null;
+    externsParserConfig = null;
+    bulkParserConfig = null;
+    abstractInterpreter = null;
+    typeValidator = null;
+    phaseOptimizer = null;
+    if (tracker != null) {
+      removeChangeHandler(tracker.getCodeChangeHandler());
+      tracker = null;
+    }
+    defFinder = null;
+    symbolTable = null;
+    globalRefMap = null;
+    progress = 0.0;
+    lastPassName = null;
+    externProperties = null;
+    currentTracer = null;
+    currentPassName = null;
+    syntheticCodeId = 0;
+    synthesizedExternsInput = null;
+    defaultDefineValues = ImmutableMap.of();
+    recentChange.reset();
+    setLifeCycleStage(LifeCycleStage.RAW);
+    if (typeRegistry != null) {
+      typeRegistry.resetForNewCompile();
+    }
+  }
+
+  /**
+   * Keeps a copy of a freshly parsed extern AST, if the compiler is being
+   * reused and the extern parsed without any errors or warnings.
+   */
+  private void maybeKeepParsedExtern(
+      CompilerInput input, Node root, int errorCount, int warningCount) {
+    if (parsedExterns == null || isIdeMode()
+        || errorManager.getErrorCount() != errorCount
+        || errorManager.getWarningCount() != warningCount) {
+      return;
+    }
+    SourceFile file = input.getSourceFile();
+    if (file == null || parsedExterns.containsKey(file.getName())) {
+      return;
+    }
+    try {
+      parsedExterns.put(file.getName(),
+          new ParsedExtern(file, file.getCode(), root.cloneTree()));
+    } catch (IOException e) {
+      // The file was read once already; just don't keep it.
+    }
+  }
+
+  /** An extern AST, as it was before any passes ran on it. */
+  private static final class ParsedExtern {
+    private final SourceFile file;
+    private final String code;
+    private final Node root;
+
+    ParsedExtern(SourceFile file, String code, Node root) {
+      this.file = file;
+      this.code = code;
+      this.root = root;
+    }
+
+    boolean isCopyOf(SourceFile other) {
+      try {
+        return file.isExtern() == other.isExtern()
+            && code.equals(other.getCode());
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+
+  /** An extern AST that is copied from a previous parse of the same file. */
+  private static final class ParsedExternAst implements SourceAst {
+    private static final long serialVersionUID = 1L;
+
+    private final ParsedExtern parsed;
+    private final InputId inputId;
+    private Node root;
+
+    ParsedExternAst(ParsedExtern parsed) {
+      this.parsed = parsed;
+      this.inputId = new InputId(parsed.file.getName());
+    }
+
+    @Override
+    public Node getAstRoot(AbstractCompiler compiler) {
+      if (root == null) {
+        root = parsed.root.cloneTree();
+        root.setInputId(inputId);
+      }
+      return root;
+    }
+
+    @Override
+    public void clearAst() {
+      root = null;
+    }
+
+    @Override
+    public InputId getInputId() {
+      return inputId;
+    }
+
+    @Override
+    public SourceFile getSourceFile() {
+      return parsed.file;
+    }
+
+    @Override
+    public void setSourceFile(SourceFile file) {
+      throw new IllegalStateException(
+          "Cannot set a source file for a copied AST");
+    }
+  }
+
   private static final DiagnosticType EMPTY_MODULE_LIST_ERROR =
       DiagnosticType.error("JSC_EMPTY_MODULE_LIST_ERROR",
           "At least one module must be provided");
@@ -1289,10 +1489,13 @@ public class Compiler extends AbstractCompiler {
     try {
       // Parse externs sources.
       for (CompilerInput input : externs) {
+        int errorCount = errorManager.getErrorCount();
+        int warningCount = errorManager.getWarningCount();
         Node n = input.getAstRoot(this);
         if (hasErrors()) {
           return null;
         }
+        maybeKeepParsedExtern(input, n, errorCount, warningCount);
         externsRoot.addChildToBack(n);
       }
 
@@ -1636,6 +1839,8 @@ public class Compiler extends AbstractCompiler {
         try {
           CodeBuilder cb = new CodeBuilder();
           if (jsRoot != null) {
+            cb.ensureCapacity(
+                CodePrinter.estimateLength(jsRoot, options.prettyPrint));
             int i = 0;
             for (Node scriptNode = jsRoot.getFirstChild();
                  scriptNode != null;
@@ -1690,6 +1895,7 @@ public class Compiler extends AbstractCompiler {
           return "";
         }
         CodeBuilder cb = new CodeBuilder();
+        cb.ensureCapacity(estimateOutputLength(module));
         for (int i = 0; i < numInputs; i++) {
           Node scriptNode = inputs.get(i).getAstRoot(Compiler.this);
           if (scriptNode == null) {
@@ -1748,64 +1954,182 @@ public class Compiler extends AbstractCompiler {
     runInCompilerThread(new Callable<Void>() {
       @Override
       public Void call() throws Exception {
-        if (options.printInputDelimiter) {
-          if ((cb.getLength() > 0) && !cb.endsWith("\n")) {
-            cb.append("\n");  // Make sure that the label starts on a new line
-          }
-          Preconditions.checkState(root.isScript());
+        toSource(cb, inputSeqNum, root, sourceMap);
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Converts the parse tree for a module back to JS code, recording the
+   * mappings in the given source map rather than the compiler's own.
+   *
+   * <p>Unlike {@link #toSource(JSModule)}, this does not run on the compiler
+   * thread and only reads the AST, so once compilation has finished it may be
+   * called concurrently for different modules. Callers are responsible for
+   * running it on a thread with a large enough stack, and for calling
+   * {@link #parseDeferredJsDoc()} first.
+   */
+  String toSource(JSModule module, @Nullable SourceMap moduleSourceMap) {
+    List<CompilerInput> inputs = module.getInputs();
+    CodeBuilder cb = new CodeBuilder();
+    cb.ensureCapacity(estimateOutputLength(module));
+    for (int i = 0; i < inputs.size(); i++) {
+      Node scriptNode = inputs.get(i).getAstRoot(this);
+      if (scriptNode == null) {
+        throw new IllegalArgumentException(
+            "Bad module: " + module.getName());
+      }
+      toSource(cb, i, scriptNode, moduleSourceMap);
+    }
+    return cb.toString();
+  }
 
-          String delimiter = options.inputDelimiter;
+  /**
+   * Converts the main parse tree back to JS code, printing each script on
+   * one of the given workers. The code and source map are the same as those
+   * of {@link #toSource()}.
+   *
+   * <p>Like {@link #toSource(JSModule, SourceMap)}, this does not run on the
+   * compiler thread, and the workers must have a large enough stack.
+   */
+  String toSource(ExecutorService workers) {
+    if (jsRoot == null) {
+      return "";
+    }
+    parseDeferredJsDoc();
+    List<Future<CodePrinter.PrintedCode>> printed = new ArrayList<>();
+    int i = 0;
+    for (Node scriptNode = jsRoot.getFirstChild();
+         scriptNode != null;
+         scriptNode = scriptNode.getNext()) {
+      final CodePrinter.Builder printer =
+          createCodePrinter(scriptNode, sourceMap, i++ == 0);
+      printed.add(workers.submit(new Callable<CodePrinter.PrintedCode>() {
+        @Override
+        public CodePrinter.PrintedCode call() {
+          return printer.buildPrintedCode();
+        }
+      }));
+    }
+
+    // Stitch the scripts together in order, offsetting the mappings of
+    // each by the position at which its code starts.
+    CodeBuilder cb = new CodeBuilder();
+    cb.ensureCapacity(CodePrinter.estimateLength(jsRoot, options.prettyPrint));
+    i = 0;
+    for (Node scriptNode = jsRoot.getFirstChild();
+         scriptNode != null;
+         scriptNode = scriptNode.getNext(), i++) {
+      CodePrinter.PrintedCode code = Futures.getUnchecked(printed.get(i));
+      startInput(cb, i, scriptNode, sourceMap);
+      int start = cb.getLength();
+      cb.append(code.getCode());
+      if (sourceMap != null) {
+        code.generateSourceMap(sourceMap);
+      }
+      endInput(cb, start);
+    }
+    return cb.toString();
+  }
 
-          String inputName = root.getInputId().getIdName();
-          String sourceName = root.getSourceFileName();
-          Preconditions.checkState(sourceName != null);
-          Preconditions.checkState(!sourceName.isEmpty());
+  /**
+   * Parses the JSDoc that the parser deferred, if the printer will read it.
+   * A deferred comment reports its warnings when it is parsed, and the error
+   * manager is not thread-safe, so this must be called on the compiler
+   * thread before code is printed on other threads.
+   */
+  void parseDeferredJsDoc() {
+    if (!options.preserveTypeAnnotations || jsRoot == null) {
+      return;
+    }
+    // Walk the tree without recursion, as the compiler thread's stack may
+    // not be deep enough for it.
+    Node n = jsRoot;
+    while (n != null) {
+      n.getJSDocInfo();
+      if (n.hasChildren()) {
+        n = n.getFirstChild();
+        continue;
+      }
+      while (n != jsRoot && n.getNext() == null) {
+        n = n.getParent();
+      }
+      n = (n == jsRoot) ? null : n.getNext();
+    }
+  }
 
-          delimiter = delimiter
-              .replaceAll("%name%", Matcher.quoteReplacement(inputName))
-              .replaceAll("%num%", String.valueOf(inputSeqNum));
+  private void toSource(CodeBuilder cb, int inputSeqNum, Node root,
+      @Nullable SourceMap sourceMap) {
+    startInput(cb, inputSeqNum, root, sourceMap);
 
-          cb.append(delimiter)
-            .append("\n");
-        }
-        if (root.getJSDocInfo() != null) {
-          String license = root.getJSDocInfo().getLicense();
-          if (license != null && cb.addLicense(license)) {
-            cb.append("/*\n")
-              .append(license)
-              .append("*/\n");
-          }
-        }
+    // if LanguageMode is strict, only print 'use strict'
+    // for the first input file
+    int start = cb.getLength();
+    cb.append(createCodePrinter(root, sourceMap, inputSeqNum == 0));
+    endInput(cb, start);
+  }
 
-        // If there is a valid source map, then indicate to it that the current
-        // root node's mappings are offset by the given string builder buffer.
-        if (options.sourceMapOutputPath != null) {
-          sourceMap.setStartingPosition(
-              cb.getLineIndex(), cb.getColumnIndex());
-        }
+  /**
+   * Writes out the input delimiter and license that precede the code of an
+   * input, and offsets the source map to where the code will start.
+   */
+  private void startInput(CodeBuilder cb, int inputSeqNum, Node root,
+      @Nullable SourceMap sourceMap) {
+    if (options.printInputDelimiter) {
+      if ((cb.getLength() > 0) && !cb.endsWith("\n")) {
+        cb.append("\n");  // Make sure that the label starts on a new line
+      }
+      Preconditions.checkState(root.isScript());
 
-        // if LanguageMode is strict, only print 'use strict'
-        // for the first input file
-        String code = toSource(root, sourceMap, inputSeqNum == 0);
-        if (!code.isEmpty()) {
-          cb.append(code);
-
-          // In order to avoid parse ambiguity when files are concatenated
-          // together, all files should end in a semi-colon. Do a quick
-          // heuristic check if there's an obvious semi-colon already there.
-          int length = code.length();
-          char lastChar = code.charAt(length - 1);
-          char secondLastChar = length >= 2 ?
-              code.charAt(length - 2) : '\0';
-          boolean hasSemiColon = lastChar == ';' ||
-              (lastChar == '\n' && secondLastChar == ';');
-          if (!hasSemiColon) {
-            cb.append(";");
-          }
-        }
-        return null;
+      String delimiter = options.inputDelimiter;
+
+      String inputName = root.getInputId().getIdName();
+      String sourceName = root.getSourceFileName();
+      Preconditions.checkState(sourceName != null);
+      Preconditions.checkState(!sourceName.isEmpty());
+
+      delimiter = delimiter
+          .replaceAll("%name%", Matcher.quoteReplacement(inputName))
+          .replaceAll("%num%", String.valueOf(inputSeqNum));
+
+      cb.append(delimiter)
+        .append("\n");
+    }
+    if (root.getJSDocInfo() != null) {
+      String license = root.getJSDocInfo().getLicense();
+      if (license != null && cb.addLicense(license)) {
+        cb.append("/*\n")
+          .append(license)
+          .append("*/\n");
       }
-    });
+    }
+
+    // If there is a valid source map, then indicate to it that the current
+    // root node's mappings are offset by the given string builder buffer.
+    if (sourceMap != null) {
+      sourceMap.setStartingPosition(
+          cb.getLineIndex(), cb.getColumnIndex());
+    }
+  }
+
+  /** Ends the code of an input, which was appended from start, with a ';'. */
+  private static void endInput(CodeBuilder cb, int start) {
+    int end = cb.getLength();
+    if (end > start) {
+      // In order to avoid parse ambiguity when files are concatenated
+      // together, all files should end in a semi-colon. Do a quick
+      // heuristic check if there's an obvious semi-colon already there.
+      int length = end - start;
+      char lastChar = cb.charAt(end - 1);
+      char secondLastChar = length >= 2 ?
+          cb.charAt(end - 2) : '\0';
+      boolean hasSemiColon = lastChar == ';' ||
+          (lastChar == '\n' && secondLastChar == ';');
+      if (!hasSemiColon) {
+        cb.append(";");
+      }
+    }
   }
 
   /**
@@ -1822,11 +2146,31 @@ public class Compiler extends AbstractCompiler {
    * Generates JavaScript source code for an AST.
    */
   private String toSource(Node n, SourceMap sourceMap, boolean firstOutput) {
+    return createCodePrinter(n, sourceMap, firstOutput).build();
+  }
+
+  private CodePrinter.Builder createCodePrinter(
+      Node n, SourceMap sourceMap, boolean firstOutput) {
     CodePrinter.Builder builder = new CodePrinter.Builder(n);
     builder.setCompilerOptions(options);
     builder.setSourceMap(sourceMap);
     builder.setTagAsStrict(firstOutput && options.getLanguageOut().isStrict());
-    return builder.build();
+    return builder;
+  }
+
+  /**
+   * Estimates the length of the code printed for a module, so that the
+   * output buffer can be allocated once rather than grown as it fills.
+   */
+  private int estimateOutputLength(JSModule module) {
+    long length = 0;
+    for (CompilerInput input : module.getInputs()) {
+      Node scriptNode = input.getAstRoot(this);
+      if (scriptNode != null) {
+        length += CodePrinter.estimateLength(scriptNode, options.prettyPrint);
+      }
+    }
+    return (int) Math.min(length, Integer.MAX_VALUE / 2);
   }
 
   /**
@@ -1846,24 +2190,50 @@ public class Compiler extends AbstractCompiler {
 
     /** Appends the given string to the text buffer. */
     CodeBuilder append(String str) {
+      return append((CharSequence) str);
+    }
+
+    /** Appends the given text to the text buffer. */
+    CodeBuilder append(CharSequence str) {
+      int start = sb.length();
       sb.append(str);
+      advancePosition(start);
+      return this;
+    }
+
+    /**
+     * Prints the code of the given printer straight into the text buffer,
+     * without copying it through an intermediate string.
+     */
+    CodeBuilder append(CodePrinter.Builder printer) {
+      int start = sb.length();
+      printer.build(sb);
+      advancePosition(start);
+      return this;
+    }
 
-      // Adjust the line and column information for the new text.
-      int index = -1;
-      int lastIndex = index;
-      while ((index = str.indexOf('\n', index + 1)) >= 0) {
-        ++lineCount;
-        lastIndex = index;
+    /** Adjusts the line and column information for text added at start. */
+    private void advancePosition(int start) {
+      int length = sb.length();
+      int lastIndex = -1;
+      for (int i = start; i < length; i++) {
+        if (sb.charAt(i) == '\n') {
+          ++lineCount;
+          lastIndex = i;
+        }
       }
 
       if (lastIndex == -1) {
         // No new lines, append the new characters added.
-        colCount += str.length();
+        colCount += length - start;
       } else {
-        colCount = str.length() - (lastIndex + 1);
+        colCount = length - (lastIndex + 1);
       }
+    }
 
-      return this;
+    /** Makes room for at least the given number of characters in total. */
+    void ensureCapacity(int capacity) {
+      sb.ensureCapacity(capacity);
     }
 
     /** Returns all text in the text buffer. */
@@ -1877,6 +2247,11 @@ public class Compiler extends AbstractCompiler {
       return sb.length();
     }
 
+    /** Returns the character at the given index of the text buffer. */
+    char charAt(int index) {
+      return sb.charAt(index);
+    }
+
     /** Returns the (zero-based) index of the last line in the text buffer. */
     int getLineIndex() {
       return lineCount;
@@ -2094,6 +2469,11 @@ public class Compiler extends AbstractCompiler {
     switch (context) {
       case EXTERNS:
         return externsParserConfig;
+      case BULK:
+        if (bulkParserConfig == null) {
+          bulkParserConfig = ParserRunner.createBulkConfig(parserConfig);
+        }
+        return bulkParserConfig;
       default:
         return parserConfig;
     }
@@ -2104,6 +2484,7 @@ public class Compiler extends AbstractCompiler {
         isIdeMode(),
         options.isParseJsDocDocumentation(),
         options.isPreserveJsDocWhitespace(),
+        options.isParseJsDocLazily(),
         mode,
         options.extraAnnotationNames);
   }
@@ -2250,6 +2631,59 @@ public class Compiler extends AbstractCompiler {
         .build();
   }
 
+  /**
+   * Composes the mappings of a generated source map with the input source
+   * maps. Printing an input walks its generated positions mostly forward, so
+   * each input map is read through a cursor that resumes from the previous
+   * lookup. The cursors make this confined to the thread printing with the
+   * owning source map.
+   */
+  private class InputSourceMapping implements SourceMap.SourceFileMapping {
+    private final Map<String, SourceMapConsumerV3.Cursor> cursors =
+        new HashMap<>();
+    /** Original file names, resolved relative to our base directory. */
+    private final Map<String, String> resolvedPaths = new HashMap<>();
+    private OriginalMapping lastFound = null;
+    private OriginalMapping lastResult = null;
+
+    @Override
+    public OriginalMapping getSourceMapping(
+        String fileName, int lineNo, int columnNo) {
+      SourceMapInput sourceMap = options.inputSourceMaps.get(fileName);
+      if (sourceMap == null) {
+        return null;
+      }
+
+      SourceMapConsumerV3.Cursor cursor = cursors.get(fileName);
+      if (cursor == null) {
+        cursor = sourceMap.getSourceMap().newCursor();
+        cursors.put(fileName, cursor);
+      }
+
+      // JSCompiler uses 0-indexing for columnNumber, the SourceMap
+      // 1-indexing.
+      OriginalMapping found = cursor.getMappingForLine(lineNo, columnNo + 1);
+      if (found == null) {
+        return null;
+      } else if (found == lastFound) {
+        return lastResult;
+      }
+
+      String originalFile = found.getOriginalFile();
+      String path = resolvedPaths.get(originalFile);
+      if (path == null) {
+        path = getRelativeTo(originalFile, sourceMap.getOriginalPath());
+        resolvedPaths.put(originalFile, path);
+      }
+      lastFound = found;
+      lastResult = found.toBuilder()
+          .setOriginalFile(path)
+          .setColumnPosition(found.getColumnPosition() - 1)
+          .build();
+      return lastResult;
+    }
+  }
+
   @Override
   public String getSourceLine(String sourceName, int lineNumber) {
     if (lineNumber < 1) {
@@ -52,10 +52,25 @@ final class CompilerExecutor {
         }
     });
 
+  /**
+   * Creates a pool of daemon threads with the same enlarged stack as the
+   * compiler thread, for work that walks the AST outside of it.
+   */
+  static ExecutorService newWorkerPool(int numThreads, final String name) {
+    return Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(null, r, name, COMPILER_STACK_SIZE);
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
   /**
    * Use a dedicated compiler thread per Compiler instance.
    */
-  private Thread compilerThread = null;
+  private volatile Thread compilerThread = null;
 
   /** Whether to use threads. */
   private boolean useThreads = true;
@@ -135,6 +135,8 @@ public class CompilerOptions {
 
   private boolean parseJsDocDocumentation = false;
   private boolean preserveJsDocWhitespace = false;
+  private boolean parseJsDocLazily = false;
+  private Set<String> bulkParsedInputs = ImmutableSet.of();
 
   /**
    * Even if checkTypes is disabled, clients might want to still infer types.
@@ -144,6 +146,13 @@ public class CompilerOptions {
 
   private boolean useNewTypeInference;
 
+  /**
+   * The number of threads used to build the control flow graphs of function
+   * scopes ahead of type inference. Inference itself always runs on the
+   * compiler thread.
+   */
+  private int numCfgPrefetchThreads = 1;
+
   /**
    * Configures the compiler to skip as many passes as possible.
    * If transpilation is requested, it will be run, but all others passes will be skipped.
@@ -561,6 +570,12 @@ public class CompilerOptions {
   /** Input sourcemap files, indexed by the JS files they refer to */
   ImmutableMap<String, SourceMapInput> inputSourceMaps;
 
+  /**
+   * Whether the generated source map should point through the input source
+   * maps to the files the inputs were generated from.
+   */
+  boolean applyInputSourceMaps;
+
   /** Give anonymous functions names for easier debugging */
   public AnonymousFunctionNamingPolicy anonymousFunctionNaming;
 
@@ -1060,6 +1075,7 @@ public class CompilerOptions {
     replaceStringsReservedStrings = Collections.emptySet();
     propertyInvalidationErrors = new HashMap<>();
     inputSourceMaps = ImmutableMap.of();
+    applyInputSourceMaps = false;
 
     // Instrumentation
     instrumentationTemplate = null;  // instrument functions
@@ -1717,6 +1733,20 @@ public class CompilerOptions {
     this.useNewTypeInference = enable;
   }
 
+  public int getNumCfgPrefetchThreads() {
+    return numCfgPrefetchThreads;
+  }
+
+  /**
+   * Sets the number of threads used to build control flow graphs ahead of
+   * type inference, which itself stays on the compiler thread. If 1, they
+   * are built on the compiler thread as each scope is inferred.
+   */
+  public void setNumCfgPrefetchThreads(int numThreads) {
+    Preconditions.checkArgument(numThreads > 0);
+    this.numCfgPrefetchThreads = numThreads;
+  }
+
   /**
    * @return Whether assumeStrictThis is set.
    */
@@ -1802,6 +1832,41 @@ public class CompilerOptions {
     return preserveJsDocWhitespace;
   }
 
+  /**
+   * Enables or disables lazy parsing of JSDoc. When enabled, most JSDoc
+   * comments are only parsed the first time a pass asks for their
+   * {@code JSDocInfo}, and comments that no pass reads are never parsed,
+   * nor are their JSDoc warnings reported. Has no effect in IDE mode or when
+   * JSDoc documentation is parsed.
+   */
+  public void setParseJsDocLazily(boolean parseJsDocLazily) {
+    this.parseJsDocLazily = parseJsDocLazily;
+  }
+
+  /**
+   * @return Whether JSDoc comments may be parsed on first access.
+   */
+  public boolean isParseJsDocLazily() {
+    return parseJsDocLazily;
+  }
+
+  /**
+   * Sets the names of the inputs that are minified or generated code, such
+   * as third-party libraries or protocol buffer bindings. They are parsed in
+   * bulk mode, which skips their comments and JSDoc, except for
+   * {@code @license} and {@code @preserve} comments.
+   */
+  public void setBulkParsedInputs(Iterable<String> fileNames) {
+    this.bulkParsedInputs = ImmutableSet.copyOf(fileNames);
+  }
+
+  /**
+   * @return Whether the input with the given name is parsed in bulk mode.
+   */
+  public boolean isBulkParsedInput(String fileName) {
+    return bulkParsedInputs.contains(fileName);
+  }
+
   /**
    * Skip all passes (other than transpilation, if requested). Don't inject es6_runtime.js
    * or do any checks/optimizations (this is useful for per-file transpilation).
@@ -2275,6 +2340,10 @@ public class CompilerOptions {
     this.sourceMapFormat = sourceMapFormat;
   }
 
+  public void setApplyInputSourceMaps(boolean applyInputSourceMaps) {
+    this.applyInputSourceMaps = applyInputSourceMaps;
+  }
+
   @GwtIncompatible("SourceMap")
   public void setSourceMapLocationMappings(
       List<SourceMap.LocationMapping> sourceMapLocationMappings) {
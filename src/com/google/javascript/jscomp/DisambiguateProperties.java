@@ -310,12 +310,14 @@ class DisambiguateProperties<T> implements CompilerPass {
     // For each pair (A, B), here we mark both A and B as types whose properties
     // cannot be renamed.
     for (TypeMismatch mis : compiler.getTypeMismatches()) {
-      addInvalidatingType(mis.typeA, mis.src);
-      addInvalidatingType(mis.typeB, mis.src);
+      JSError error = invalidationMap == null ? null : mis.getSource();
+      addInvalidatingType(mis.typeA, error);
+      addInvalidatingType(mis.typeB, error);
     }
     for (TypeMismatch mis : compiler.getImplicitInterfaceUses()) {
-      addInvalidatingType(mis.typeA, mis.src);
-      addInvalidatingType(mis.typeB, mis.src);
+      JSError error = invalidationMap == null ? null : mis.getSource();
+      addInvalidatingType(mis.typeA, error);
+      addInvalidatingType(mis.typeB, error);
     }
     // Gather names of properties in externs; these properties can't be renamed.
     NodeTraversal.traverseEs6(compiler, externs, new FindExternProperties());
@@ -76,15 +76,23 @@ public class JsAst implements SourceAst {
     sourceFile = file;
   }
 
+  private AbstractCompiler.ConfigContext getParserConfigContext(
+      AbstractCompiler compiler) {
+    if (sourceFile.isExtern()) {
+      return AbstractCompiler.ConfigContext.EXTERNS;
+    } else if (compiler.getOptions().isBulkParsedInput(fileName)) {
+      return AbstractCompiler.ConfigContext.BULK;
+    }
+    return AbstractCompiler.ConfigContext.DEFAULT;
+  }
+
   private void parse(AbstractCompiler compiler) {
     int startErrorCount = compiler.getErrorManager().getErrorCount();
     try {
       ParserRunner.ParseResult result = ParserRunner.parse(
           sourceFile,
           sourceFile.getCode(),
-          compiler.getParserConfig(sourceFile.isExtern()
-                        ? AbstractCompiler.ConfigContext.EXTERNS
-                        : AbstractCompiler.ConfigContext.DEFAULT),
+          compiler.getParserConfig(getParserConfigContext(compiler)),
           compiler.getDefaultErrorReporter());
       root = result.ast;
       if (compiler.isIdeMode()) {
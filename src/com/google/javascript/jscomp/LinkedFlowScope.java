@@ -17,8 +17,6 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
 import com.google.javascript.jscomp.type.FlowScope;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.jstype.JSType;
@@ -26,92 +24,108 @@ import com.google.javascript.rhino.jstype.SimpleSlot;
 import com.google.javascript.rhino.jstype.StaticTypedScope;
 import com.google.javascript.rhino.jstype.StaticTypedSlot;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
- * A flow scope that tries to store as little symbol information as possible,
- * instead delegating to its parents. Optimized for low memory use.
+ * A flow scope that stores the slots inferred in the local flow by dense
+ * slot indices, which are assigned to symbols as the flow first infers them.
+ *
+ * The slots are kept in a persistent trie of small arrays. A child scope
+ * shares the trie of its parent, and inferring a slot copies only the arrays
+ * on the path to it. Joins and comparisons walk two tries side by side and
+ * skip the subtrees that they share, so that both are proportional to the
+ * differences between the scopes rather than to their number of symbols.
  *
  * @author nicksantos@google.com (Nick Santos)
  */
 class LinkedFlowScope implements FlowScope {
-  // The closest flow scope cache.
-  private final FlatFlowScopeCache cache;
+  // Each array in the trie holds 1 << BITS children or slots.
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
 
-  // The parent flow scope.
-  private final LinkedFlowScope parent;
+  // The slot indices of the symbols, shared by all the flow scopes derived
+  // from the same entry lattice.
+  private final SlotIndex index;
 
-  // The distance between this flow scope and the closest flat flow scope.
-  private int depth;
+  // The TypedScope for the entire function or for the global scope.
+  private final TypedScope functionScope;
 
-  static final int MAX_DEPTH = 250;
+  // The flow scope this one was created from, or null if it is an entry
+  // lattice or a join.
+  private final LinkedFlowScope parent;
 
-  // A FlatFlowScopeCache equivalent to this scope.
-  private FlatFlowScopeCache flattened;
+  // The root of the slot trie, or null if no slots have been inferred, and
+  // the number of index bits below its top level.
+  private Object[] slots;
+  private int shift;
 
   // Flow scopes assume that all their ancestors are immutable.
   // So once a child scope is created, this flow scope may not be modified.
   private boolean frozen = false;
 
-  // The last slot defined in this flow instruction, and the head of the
-  // linked list of slots.
-  private LinkedFlowSlot lastSlot;
-
-  private LinkedFlowScope(FlatFlowScopeCache cache,
-      LinkedFlowScope directParent) {
-    this.cache = cache;
-    if (directParent == null) {
-      this.lastSlot = null;
-      this.depth = 0;
-      this.parent = cache.linkedEquivalent;
-    } else {
-      this.lastSlot = directParent.lastSlot;
-      this.depth = directParent.depth + 1;
-      this.parent = directParent;
-    }
-  }
-
-  LinkedFlowScope(FlatFlowScopeCache cache) {
-    this(cache, null);
-  }
-
-  LinkedFlowScope(LinkedFlowScope directParent) {
-    this(directParent.cache, directParent);
+  private LinkedFlowScope(SlotIndex index, TypedScope functionScope,
+      LinkedFlowScope parent, Object[] slots, int shift) {
+    this.index = index;
+    this.functionScope = functionScope;
+    this.parent = parent;
+    this.slots = slots;
+    this.shift = shift;
   }
 
-  /** Gets the function scope for this flow scope. */
-  private TypedScope getFunctionScope() {
-    return cache.functionScope;
+  private LinkedFlowScope(LinkedFlowScope directParent) {
+    this(directParent.index, directParent.functionScope, directParent,
+        directParent.slots, directParent.shift);
   }
 
   /** Whether this flows from a bottom scope. */
   private boolean flowsFromBottom() {
-    return getFunctionScope().isBottom();
+    return functionScope.isBottom();
   }
 
   /**
    * Creates an entry lattice for the flow.
    */
   public static LinkedFlowScope createEntryLattice(TypedScope scope) {
-    return new LinkedFlowScope(new FlatFlowScopeCache(scope));
+    return new LinkedFlowScope(new SlotIndex(), scope, null, null, 0);
   }
 
   @Override
   public void inferSlotType(String symbol, JSType type) {
     Preconditions.checkState(!frozen);
-    lastSlot = new LinkedFlowSlot(symbol, type, lastSlot);
-    depth++;
-    cache.dirtySymbols.add(symbol);
+    int i = index.getOrAdd(symbol);
+    while (i >>> shift >= WIDTH) {
+      Object[] root = new Object[WIDTH];
+      root[0] = slots;
+      slots = root;
+      shift += BITS;
+    }
+    slots = with(slots, shift, i, new SimpleSlot(symbol, type, true));
+  }
+
+  /**
+   * Returns a copy of the given trie, with the slot at the given index
+   * replaced.
+   */
+  private static Object[] with(
+      Object[] node, int shift, int i, StaticTypedSlot<JSType> slot) {
+    Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+    int child = (i >>> shift) & MASK;
+    if (shift == 0) {
+      copy[child] = slot;
+    } else {
+      copy[child] = with((Object[]) copy[child], shift - BITS, i, slot);
+    }
+    return copy;
   }
 
   @Override
   public void inferQualifiedSlot(Node node, String symbol, JSType bottomType,
       JSType inferredType, boolean declared) {
-    TypedScope functionScope = getFunctionScope();
     if (functionScope.isLocal()) {
       TypedVar v  = functionScope.getVar(symbol);
       if (v == null && !functionScope.isBottom()) {
@@ -135,17 +149,17 @@ class LinkedFlowScope implements FlowScope {
 
   @Override
   public JSType getTypeOfThis() {
-    return cache.functionScope.getTypeOfThis();
+    return functionScope.getTypeOfThis();
   }
 
   @Override
   public Node getRootNode() {
-    return getFunctionScope().getRootNode();
+    return functionScope.getRootNode();
   }
 
   @Override
   public StaticTypedScope<JSType> getParentScope() {
-    return getFunctionScope().getParentScope();
+    return functionScope.getParentScope();
   }
 
   /**
@@ -153,15 +167,32 @@ class LinkedFlowScope implements FlowScope {
    */
   @Override
   public StaticTypedSlot<JSType> getSlot(String name) {
-    if (cache.dirtySymbols.contains(name)) {
-      for (LinkedFlowSlot slot = lastSlot;
-           slot != null; slot = slot.parent) {
-        if (slot.getName().equals(name)) {
-          return slot;
-        }
-      }
+    StaticTypedSlot<JSType> slot = getFlowSlot(index.get(name));
+    return slot != null ? slot : functionScope.getSlot(name);
+  }
+
+  /**
+   * Returns the slot inferred in the local flow for the given index, or null
+   * if there is none.
+   */
+  private StaticTypedSlot<JSType> getFlowSlot(int i) {
+    if (i < 0 || i >>> shift >= WIDTH) {
+      return null;
     }
-    return cache.getSlot(name);
+    Object[] node = slots;
+    for (int s = shift; node != null && s > 0; s -= BITS) {
+      node = (Object[]) node[(i >>> s) & MASK];
+    }
+    return node == null ? null : slotAt(node, i & MASK);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static StaticTypedSlot<JSType> slotAt(Object[] leaf, int i) {
+    return leaf == null ? null : (StaticTypedSlot<JSType>) leaf[i];
+  }
+
+  private static Object[] childAt(Object[] node, int i) {
+    return node == null ? null : (Object[]) node[i];
   }
 
   @Override
@@ -172,15 +203,54 @@ class LinkedFlowScope implements FlowScope {
   @Override
   public FlowScope createChildFlowScope() {
     frozen = true;
+    return new LinkedFlowScope(this);
+  }
 
-    if (depth > MAX_DEPTH) {
-      if (flattened == null) {
-        flattened = new FlatFlowScopeCache(this);
+  /**
+   * Returns the trie of this scope, with enough levels above it to have the
+   * given shift.
+   */
+  private Object[] getSlots(int toShift) {
+    Object[] root = slots;
+    for (int s = shift; s < toShift; s += BITS) {
+      if (root != null) {
+        Object[] grown = new Object[WIDTH];
+        grown[0] = root;
+        root = grown;
       }
-      return new LinkedFlowScope(flattened);
     }
+    return root;
+  }
 
-    return new LinkedFlowScope(this);
+  /**
+   * Returns a copy of the given scope whose slots are indexed by the slot
+   * indices of this scope.
+   */
+  private LinkedFlowScope reindex(LinkedFlowScope other) {
+    if (other.index == index) {
+      return other;
+    }
+    LinkedFlowScope copy = new LinkedFlowScope(
+        index, other.functionScope, null, null, 0);
+    reindexSlots(other.slots, other.shift, copy);
+    return copy;
+  }
+
+  private static void reindexSlots(
+      Object[] node, int shift, LinkedFlowScope copy) {
+    if (node == null) {
+      return;
+    }
+    for (int i = 0; i < WIDTH; i++) {
+      if (shift == 0) {
+        StaticTypedSlot<JSType> slot = slotAt(node, i);
+        if (slot != null) {
+          copy.inferSlotType(slot.getName(), slot.getType());
+        }
+      } else {
+        reindexSlots(childAt(node, i), shift - BITS, copy);
+      }
+    }
   }
 
   /**
@@ -190,25 +260,43 @@ class LinkedFlowScope implements FlowScope {
    */
   @Override
   public StaticTypedSlot<JSType> findUniqueRefinedSlot(FlowScope blindScope) {
-    StaticTypedSlot<JSType> result = null;
-
-    for (LinkedFlowScope currentScope = this;
-         currentScope != blindScope;
-         currentScope = currentScope.parent) {
-      for (LinkedFlowSlot currentSlot = currentScope.lastSlot;
-           currentSlot != null &&
-           (currentScope.parent == null ||
-            currentScope.parent.lastSlot != currentSlot);
-           currentSlot = currentSlot.parent) {
-        if (result == null) {
-          result = currentSlot;
-        } else if (!currentSlot.getName().equals(result.getName())) {
-          return null;
+    LinkedFlowScope blind = (LinkedFlowScope) blindScope;
+    if (blind.index != index) {
+      return null;
+    }
+    int maxShift = Math.max(shift, blind.shift);
+    int[] refined = {-1};
+    if (!findRefinedSlots(
+            getSlots(maxShift), blind.getSlots(maxShift), maxShift, 0, refined)
+        || refined[0] == -1) {
+      return null;
+    }
+    return getFlowSlot(refined[0]);
+  }
+
+  /**
+   * Finds the index of the only slot that differs between two tries.
+   * Returns false if more than one does.
+   */
+  private static boolean findRefinedSlots(
+      Object[] a, Object[] b, int shift, int base, int[] refined) {
+    if (a == b) {
+      return true;
+    }
+    for (int i = 0; i < WIDTH; i++) {
+      if (shift == 0) {
+        if (slotAt(a, i) != slotAt(b, i)) {
+          if (refined[0] != -1) {
+            return false;
+          }
+          refined[0] = base + i;
         }
+      } else if (!findRefinedSlots(childAt(a, i), childAt(b, i),
+          shift - BITS, base + (i << shift), refined)) {
+        return false;
       }
     }
-
-    return result;
+    return true;
   }
 
   /**
@@ -244,8 +332,7 @@ class LinkedFlowScope implements FlowScope {
   public LinkedFlowScope optimize() {
     LinkedFlowScope current;
     for (current = this;
-         current.parent != null &&
-             current.lastSlot == current.parent.lastSlot;
+         current.parent != null && current.slots == current.parent.slots;
          current = current.parent) {}
     return current;
   }
@@ -263,7 +350,112 @@ class LinkedFlowScope implements FlowScope {
       if (linkedA.optimize() == linkedB.optimize()) {
         return linkedA.createChildFlowScope();
       }
-      return new LinkedFlowScope(new FlatFlowScopeCache(linkedA, linkedB));
+
+      // A scope without slots can take the slot indices of the other one.
+      if (linkedA.slots == null && linkedB.slots != null) {
+        linkedA = new LinkedFlowScope(
+            linkedB.index, linkedA.functionScope, null, null, 0);
+      } else if (linkedB.slots == null) {
+        linkedB = new LinkedFlowScope(
+            linkedA.index, linkedB.functionScope, null, null, 0);
+      } else {
+        linkedB = linkedA.reindex(linkedB);
+      }
+      return new SlotJoin(linkedA, linkedB).join();
+    }
+  }
+
+  /**
+   * Joins the slots of two flow scopes that share their slot indices.
+   *
+   * There are 5 different join cases for each symbol:
+   * 1) The type is declared in scope A, not in scope B,
+   *    and not in functionScope. Just use the one in A.
+   * 2) The type is declared in scope B, not in scope A,
+   *    and not in functionScope. Just use the one in B.
+   * 3) The type is declared in functionScope and scope A, but
+   *    not in scope B. Join the two types.
+   * 4) The type is declared in functionScope and scope B, but
+   *    not in scope A. Join the two types.
+   * 5) The type is declared in scope A and scope B. Join
+   *    the two types.
+   */
+  private static class SlotJoin {
+    private final LinkedFlowScope scopeA;
+    private final LinkedFlowScope scopeB;
+
+    SlotJoin(LinkedFlowScope scopeA, LinkedFlowScope scopeB) {
+      Preconditions.checkState(scopeA.index == scopeB.index);
+      this.scopeA = scopeA;
+      this.scopeB = scopeB;
+    }
+
+    LinkedFlowScope join() {
+      // Always prefer the "real" function scope to the faked-out
+      // bottom scope.
+      TypedScope functionScope = scopeA.flowsFromBottom()
+          ? scopeB.functionScope : scopeA.functionScope;
+      int shift = Math.max(scopeA.shift, scopeB.shift);
+      Object[] slots = join(
+          scopeA.getSlots(shift), scopeB.getSlots(shift), shift, 0);
+      return new LinkedFlowScope(
+          scopeA.index, functionScope, null, slots, shift);
+    }
+
+    private Object[] join(Object[] a, Object[] b, int shift, int base) {
+      if (a == b) {
+        return a;
+      }
+      Object[] joined = new Object[WIDTH];
+      for (int i = 0; i < WIDTH; i++) {
+        if (shift == 0) {
+          joined[i] = joinSlots(slotAt(a, i), slotAt(b, i), base + i);
+        } else {
+          joined[i] = join(childAt(a, i), childAt(b, i), shift - BITS,
+              base + (i << shift));
+        }
+      }
+      return joined;
+    }
+
+    private StaticTypedSlot<JSType> joinSlots(StaticTypedSlot<JSType> slotA,
+        StaticTypedSlot<JSType> slotB, int i) {
+      if (slotA == slotB) {
+        return slotA;
+      }
+      boolean aIsNull = slotA == null || slotA.getType() == null;
+      boolean bIsNull = slotB == null || slotB.getType() == null;
+      if (aIsNull && bIsNull) {
+        return slotA != null ? slotA : slotB;
+      }
+
+      String name = scopeA.index.getName(i);
+      JSType joinedType;
+      if (bIsNull) {
+        JSType fnSlotType = getType(scopeB.functionScope.getSlot(name));
+        if (fnSlotType == null) {
+          // Case #1
+          return slotA;
+        }
+        // Case #3
+        joinedType = slotA.getType().getLeastSupertype(fnSlotType);
+      } else if (aIsNull) {
+        JSType fnSlotType = getType(scopeA.functionScope.getSlot(name));
+        if (fnSlotType == null) {
+          // Case #2
+          return slotB;
+        }
+        // Case #4
+        joinedType = slotB.getType().getLeastSupertype(fnSlotType);
+      } else {
+        // Case #5
+        joinedType = slotA.getType().getLeastSupertype(slotB.getType());
+      }
+      return new SimpleSlot(name, joinedType, true);
+    }
+
+    private static JSType getType(StaticTypedSlot<JSType> slot) {
+      return slot == null ? null : slot.getType();
     }
   }
 
@@ -283,38 +475,42 @@ class LinkedFlowScope implements FlowScope {
       // they're equal--this just means that data flow analysis will have
       // to propagate the entry lattice a little bit further than it
       // really needs to. Everything will still come out ok.
-      if (this.getFunctionScope() != that.getFunctionScope()) {
+      if (this.functionScope != that.functionScope) {
         return false;
       }
 
-      if (cache == that.cache) {
-        // If the two flow scopes have the same cache, then we can check
-        // equality a lot faster: by just looking at the "dirty" elements
-        // in the cache, and comparing them in both scopes.
-        for (String name : cache.dirtySymbols) {
-          if (diffSlots(getSlot(name), that.getSlot(name))) {
-            return false;
+      that = reindex(that);
+      int maxShift = Math.max(shift, that.shift);
+      return !diffSlots(
+          getSlots(maxShift), that.getSlots(maxShift), maxShift, 0);
+    }
+    return false;
+  }
+
+  /**
+   * Determines whether two tries have a meaningfully different slot. Slots
+   * that are not in the local flow are looked up in the function scope.
+   */
+  private boolean diffSlots(Object[] a, Object[] b, int shift, int base) {
+    if (a == b) {
+      return false;
+    }
+    for (int i = 0; i < WIDTH; i++) {
+      if (shift == 0) {
+        StaticTypedSlot<JSType> slotA = slotAt(a, i);
+        StaticTypedSlot<JSType> slotB = slotAt(b, i);
+        if (slotA != slotB) {
+          String name = index.getName(base + i);
+          if (diffSlots(
+                  slotA != null ? slotA : functionScope.getSlot(name),
+                  slotB != null ? slotB : functionScope.getSlot(name))) {
+            return true;
           }
         }
-
+      } else if (diffSlots(childAt(a, i), childAt(b, i), shift - BITS,
+          base + (i << shift))) {
         return true;
       }
-
-      Map<String, StaticTypedSlot<JSType>> myFlowSlots = allFlowSlots();
-      Map<String, StaticTypedSlot<JSType>> otherFlowSlots = that.allFlowSlots();
-
-      for (StaticTypedSlot<JSType> slot : myFlowSlots.values()) {
-        if (diffSlots(slot, otherFlowSlots.get(slot.getName()))) {
-          return false;
-        }
-        otherFlowSlots.remove(slot.getName());
-      }
-      for (StaticTypedSlot<JSType> slot : otherFlowSlots.values()) {
-        if (diffSlots(slot, myFlowSlots.get(slot.getName()))) {
-          return false;
-        }
-      }
-      return true;
     }
     return false;
   }
@@ -337,174 +533,37 @@ class LinkedFlowScope implements FlowScope {
     return slotA.getType().differsFrom(slotB.getType());
   }
 
-  /**
-   * Gets all the symbols that have been defined before this point
-   * in the current flow. Does not return slots that have not changed during
-   * the flow.
-   *
-   * For example, consider the code:
-   * <code>
-   * var x = 3;
-   * function f() {
-   *   var y = 5;
-   *   y = 6; // FLOW POINT
-   *   var z = y;
-   *   return z;
-   * }
-   * </code>
-   * A FlowScope at FLOW POINT will return a slot for y, but not
-   * a slot for x or z.
-   */
-  private Map<String, StaticTypedSlot<JSType>> allFlowSlots() {
-    Map<String, StaticTypedSlot<JSType>> slots = new LinkedHashMap<>();
-    for (LinkedFlowSlot slot = lastSlot;
-         slot != null; slot = slot.parent) {
-      if (!slots.containsKey(slot.getName())) {
-        slots.put(slot.getName(), slot);
-      }
-    }
-
-    for (Map.Entry<String, StaticTypedSlot<JSType>> symbolEntry : cache.symbols.entrySet()) {
-      if (!slots.containsKey(symbolEntry.getKey())) {
-        slots.put(symbolEntry.getKey(), symbolEntry.getValue());
-      }
-    }
-
-    return slots;
-  }
-
   @Override
   public int hashCode() {
     throw new UnsupportedOperationException();
   }
 
   /**
-   * A static slot that can be used in a linked list.
+   * Assigns dense indices to the symbols of a flow, in the order in which
+   * they are first inferred.
    */
-  private static class LinkedFlowSlot extends SimpleSlot {
-    final LinkedFlowSlot parent;
-
-    LinkedFlowSlot(String name, JSType type, LinkedFlowSlot parent) {
-      super(name, type, true);
-      this.parent = parent;
+  private static class SlotIndex {
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /** Returns the index of the given symbol, or -1 if it has none. */
+    int get(String name) {
+      Integer i = indices.get(name);
+      return i == null ? -1 : i;
     }
-  }
 
-  /**
-   * A map that tries to cache as much symbol table information
-   * as possible in a map. Optimized for fast lookup.
-   */
-  private static class FlatFlowScopeCache {
-    // The TypedScope for the entire function or for the global scope.
-    private final TypedScope functionScope;
-
-    // The linked flow scope that this cache represents.
-    private final LinkedFlowScope linkedEquivalent;
-
-    // All the symbols defined before this point in the local flow.
-    // May not include lazily declared qualified names.
-    private Map<String, StaticTypedSlot<JSType>> symbols = new LinkedHashMap<>();
-
-    // Used to help make lookup faster for LinkedFlowScopes by recording
-    // symbols that may be redefined "soon", for an arbitrary definition
-    // of "soon". ;)
-    //
-    // More rigorously, if a symbol is redefined in a LinkedFlowScope,
-    // and this is the closest FlatFlowScopeCache, then that symbol is marked
-    // "dirty". In this way, we don't waste time looking in the LinkedFlowScope
-    // list for symbols that aren't defined anywhere nearby.
-    final Set<String> dirtySymbols = new LinkedHashSet<>();
-
-    // The cache at the bottom of the lattice.
-    FlatFlowScopeCache(TypedScope functionScope) {
-      this.functionScope = functionScope;
-      symbols = ImmutableMap.of();
-      linkedEquivalent = null;
-    }
-
-    // A cache in the middle of a long scope chain.
-    FlatFlowScopeCache(LinkedFlowScope directParent) {
-      FlatFlowScopeCache cache = directParent.cache;
-
-      functionScope = cache.functionScope;
-      symbols = directParent.allFlowSlots();
-      linkedEquivalent = directParent;
-    }
-
-    // A cache at the join of two scope chains.
-    FlatFlowScopeCache(LinkedFlowScope joinedScopeA,
-        LinkedFlowScope joinedScopeB) {
-      linkedEquivalent = null;
-
-      // Always prefer the "real" function scope to the faked-out
-      // bottom scope.
-      functionScope = joinedScopeA.flowsFromBottom() ?
-          joinedScopeB.getFunctionScope() : joinedScopeA.getFunctionScope();
-
-      Map<String, StaticTypedSlot<JSType>> slotsA = joinedScopeA.allFlowSlots();
-      Map<String, StaticTypedSlot<JSType>> slotsB = joinedScopeB.allFlowSlots();
-
-      symbols = slotsA;
-
-      // There are 5 different join cases:
-      // 1) The type is declared in joinedScopeA, not in joinedScopeB,
-      //    and not in functionScope. Just use the one in A.
-      // 2) The type is declared in joinedScopeB, not in joinedScopeA,
-      //    and not in functionScope. Just use the one in B.
-      // 3) The type is declared in functionScope and joinedScopeA, but
-      //    not in joinedScopeB. Join the two types.
-      // 4) The type is declared in functionScope and joinedScopeB, but
-      //    not in joinedScopeA. Join the two types.
-      // 5) The type is declared in joinedScopeA and joinedScopeB. Join
-      //    the two types.
-
-      for (String name : Iterables.concat(symbols.keySet(), slotsB.keySet())) {
-        StaticTypedSlot<JSType> slotA = slotsA.get(name);
-        StaticTypedSlot<JSType> slotB = slotsB.get(name);
-
-        JSType joinedType = null;
-        if (slotB == null || slotB.getType() == null) {
-          StaticTypedSlot<JSType> fnSlot
-              = joinedScopeB.getFunctionScope().getSlot(name);
-          JSType fnSlotType = fnSlot == null ? null : fnSlot.getType();
-          if (fnSlotType == null) {
-            // Case #1 -- already inserted.
-          } else {
-            // Case #3
-            joinedType = slotA.getType().getLeastSupertype(fnSlotType);
-          }
-        } else if (slotA == null || slotA.getType() == null) {
-          StaticTypedSlot<JSType> fnSlot
-              = joinedScopeA.getFunctionScope().getSlot(name);
-          JSType fnSlotType = fnSlot == null ? null : fnSlot.getType();
-          if (fnSlotType == null) {
-            // Case #2
-            symbols.put(name, slotB);
-          } else {
-            // Case #4
-            joinedType = slotB.getType().getLeastSupertype(fnSlotType);
-          }
-        } else {
-          // Case #5
-          joinedType =
-              slotA.getType().getLeastSupertype(slotB.getType());
-        }
-
-        if (joinedType != null) {
-          symbols.put(name, new SimpleSlot(name, joinedType, true));
-        }
+    int getOrAdd(String name) {
+      Integer i = indices.get(name);
+      if (i == null) {
+        i = names.size();
+        indices.put(name, i);
+        names.add(name);
       }
+      return i;
     }
 
-    /**
-     * Get the slot for the given symbol.
-     */
-    public StaticTypedSlot<JSType> getSlot(String name) {
-      if (symbols.containsKey(name)) {
-        return symbols.get(name);
-      } else {
-        return functionScope.getSlot(name);
-      }
+    String getName(int i) {
+      return names.get(i);
     }
   }
 }
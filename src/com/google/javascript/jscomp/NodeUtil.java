@@ -4040,6 +4040,28 @@ public final class NodeUtil {
         Predicates.<Node>alwaysTrue());
   }
 
+  /**
+   * Counts the nodes of a tree. Unlike {@link #countAstSizeUpToLimit}, this
+   * walks the tree without recursion, so it can count trees with long chains
+   * of binary operators that are deeper than the stack allows.
+   */
+  static int countAstSize(Node root) {
+    int size = 0;
+    Node n = root;
+    while (n != null) {
+      size++;
+      if (n.hasChildren()) {
+        n = n.getFirstChild();
+        continue;
+      }
+      while (n != root && n.getNext() == null) {
+        n = n.getParent();
+      }
+      n = (n == root) ? null : n.getNext();
+    }
+    return size;
+  }
+
   static int countAstSizeUpToLimit(Node n, final int limit) {
     // Java doesn't allow accessing mutable local variables from another class.
     final int[] wrappedSize = {0};
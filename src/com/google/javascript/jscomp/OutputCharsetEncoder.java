@@ -22,6 +22,9 @@ import com.google.common.annotations.GwtIncompatible;
 
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Output charset encoder for {@code CodeGenerator} that delegates to a CharsetEncoder.
@@ -32,7 +35,13 @@ import java.nio.charset.CharsetEncoder;
 @GwtIncompatible("java.nio.charset")
 final class OutputCharsetEncoder {
 
-  private final CharsetEncoder encoder;
+  // The characters each charset can encode. Asking a CharsetEncoder about
+  // every printed character is slow, so this is worked out once per charset
+  // and shared by all the encoders for it.
+  private static final ConcurrentMap<Charset, BitSet> encodableChars =
+      new ConcurrentHashMap<>();
+
+  private final BitSet encodable;
 
   OutputCharsetEncoder(Charset outputCharset) {
     if (outputCharset == null || outputCharset == US_ASCII) {
@@ -40,13 +49,31 @@ final class OutputCharsetEncoder {
       // outside of straight ASCII), then don't use the encoder, but
       // just special-case the code.  This keeps the normal path through
       // the code identical to how it's been for years.
-      this.encoder = null;
+      this.encodable = null;
     } else {
-      this.encoder = outputCharset.newEncoder();
+      this.encodable = getEncodableChars(outputCharset);
     }
   }
 
   boolean canEncode(char c) {
-    return encoder != null && encoder.canEncode(c);
+    return encodable != null && encodable.get(c);
+  }
+
+  private static BitSet getEncodableChars(Charset charset) {
+    BitSet chars = encodableChars.get(charset);
+    if (chars == null) {
+      CharsetEncoder encoder = charset.newEncoder();
+      chars = new BitSet(Character.MAX_VALUE + 1);
+      for (int c = 0; c <= Character.MAX_VALUE; c++) {
+        if (encoder.canEncode((char) c)) {
+          chars.set(c);
+        }
+      }
+      BitSet existing = encodableChars.putIfAbsent(charset, chars);
+      if (existing != null) {
+        chars = existing;
+      }
+    }
+    return chars;
   }
 }
@@ -22,6 +22,8 @@ import com.google.common.annotations.GwtIncompatible;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
 import com.google.javascript.rhino.Node;
 
@@ -29,6 +31,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -45,6 +49,10 @@ import java.util.zip.GZIPOutputStream;
  * how much a pass impacts the size of the compiled output, before and after
  * gzip.
  *
+ * Whatever the tracer mode, it also records the number of AST nodes that each
+ * pass removes and the memory that the pass allocates. These are cheap to
+ * collect, unlike the code size, which is estimated by printing the AST.
+ *
  * TODO(moz): Make this GWT compatible.
  *
  * @author dimvar@google.com (Dimitris Vardoulakis)
@@ -80,6 +88,10 @@ public final class PerformanceTracker {
   private int diff = 0;
   private int gzDiff = 0;
 
+  private int astSize = 0;
+  private int astDiff = 0;
+  private long allocMem = 0;
+
   private final Deque<Stats> currentPass = new ArrayDeque<>();
 
   /** Summary stats by pass name. */
@@ -121,7 +133,9 @@ public final class PerformanceTracker {
   }
 
   void recordPassStart(String passName, boolean isOneTime) {
-    currentPass.push(new Stats(passName, isOneTime));
+    Stats stats = new Stats(passName, isOneTime);
+    stats.allocStart = getAllocatedBytes();
+    currentPass.push(stats);
     codeChange.reset();
   }
 
@@ -136,7 +150,10 @@ public final class PerformanceTracker {
     Stats logStats = currentPass.pop();
     Preconditions.checkState(passName.equals(logStats.pass));
 
-    // After parsing, initialize codeSize and gzCodeSize
+    // After parsing, initialize astSize, codeSize and gzCodeSize
+    if (passName.equals(Compiler.PARSING_PASS_NAME)) {
+      astSize = NodeUtil.countAstSize(jsRoot);
+    }
     if (passName.equals(Compiler.PARSING_PASS_NAME) && trackSize) {
       CodeSizeEstimatePrinter estimatePrinter = new CodeSizeEstimatePrinter();
       CodeGenerator.forCostEstimation(estimatePrinter).add(jsRoot);
@@ -163,6 +180,16 @@ public final class PerformanceTracker {
       logStats.changes = 1;
       summaryStats.changes += 1;
     }
+    logStats.allocMem = getAllocatedBytes() - logStats.allocStart;
+    summaryStats.allocMem += logStats.allocMem;
+
+    // Update fields related to the number of nodes
+    if (codeChange.hasCodeChanged()) {
+      int newSize = NodeUtil.countAstSize(jsRoot);
+      logStats.astDiff = astSize - newSize;
+      summaryStats.astDiff += logStats.astDiff;
+      astSize = summaryStats.astSize = logStats.astSize = newSize;
+    }
 
     // Update fields related to code size
     if (codeChange.hasCodeChanged() && trackSize) {
@@ -207,6 +234,21 @@ public final class PerformanceTracker {
     return gzCodeSize;
   }
 
+  /** Returns the number of nodes in the AST after the last pass. */
+  public int getAstSize() {
+    calcTotalStats();
+    return astSize;
+  }
+
+  /**
+   * Returns the bytes allocated by all passes, or 0 if the JVM does not
+   * measure the memory allocated by a thread.
+   */
+  public long getAllocMem() {
+    calcTotalStats();
+    return allocMem;
+  }
+
   @VisibleForTesting
   int getChanges() {
     calcTotalStats();
@@ -253,7 +295,12 @@ public final class PerformanceTracker {
       }
       diff += stats.diff;
       gzDiff += stats.gzDiff;
+      astDiff += stats.astDiff;
+      allocMem += stats.allocMem;
     }
+    // The AST size is only reported, so unlike the code size it is not
+    // checked against the per-pass reductions. They disagree when the parsing
+    // pass is recorded more than once, and the report should still be made.
     Preconditions.checkState(!trackSize || initCodeSize == diff + codeSize);
     Preconditions.checkState(!trackGzSize
         || initGzCodeSize == gzDiff + gzCodeSize);
@@ -281,26 +328,31 @@ public final class PerformanceTracker {
           });
 
       output.write("Summary:\n" +
-          "pass,runtime,runs,changingRuns,reduction,gzReduction\n");
+          "pass,runtime,runs,changingRuns,reduction,gzReduction,astReduction,allocMem\n");
       for (Entry<String, Stats> entry : statEntries) {
         String key = entry.getKey();
         Stats stats = entry.getValue();
-        output.write(String.format("%s,%d,%d,%d,%d,%d\n", key, stats.runtime,
-            stats.runs, stats.changes, stats.diff, stats.gzDiff));
+        output.write(String.format("%s,%d,%d,%d,%d,%d,%d,%d\n", key, stats.runtime,
+            stats.runs, stats.changes, stats.diff, stats.gzDiff, stats.astDiff,
+            stats.allocMem));
       }
       output.write("\nTOTAL:"
           + "\nRuntime(ms): " + runtime + "\n#Runs: " + runs
           + "\n#Changing runs: " + changes + "\n#Loopable runs: " + loopRuns
           + "\n#Changing loopable runs: " + loopChanges + "\nEstimated Reduction(bytes): " + diff
           + "\nEstimated GzReduction(bytes): " + gzDiff + "\nEstimated Size(bytes): " + codeSize
-          + "\nEstimated GzSize(bytes): " + gzCodeSize + "\n\n");
+          + "\nEstimated GzSize(bytes): " + gzCodeSize
+          + "\nAST Reduction(nodes): " + astDiff + "\nAST Size(nodes): " + astSize
+          + "\nAllocated Memory(bytes): " + allocMem + "\n\n");
 
       output.write("Log:\n" +
-          "pass,runtime,runs,changingRuns,reduction,gzReduction,size,gzSize\n");
+          "pass,runtime,runs,changingRuns,reduction,gzReduction,size,gzSize,"
+          + "astReduction,astSize,allocMem\n");
       for (Stats stats : log) {
-        output.write(String.format("%s,%d,%d,%d,%d,%d,%d,%d\n",
+        output.write(String.format("%s,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d\n",
             stats.pass, stats.runtime, stats.runs, stats.changes,
-            stats.diff, stats.gzDiff, stats.size, stats.gzSize));
+            stats.diff, stats.gzDiff, stats.size, stats.gzSize,
+            stats.astDiff, stats.astSize, stats.allocMem));
       }
       output.write("\n");
       // output can be System.out, so don't close it to not lose subsequent
@@ -311,6 +363,59 @@ public final class PerformanceTracker {
     }
   }
 
+  /**
+   * Returns the same statistics as {@link #outputTracerReport}, as JSON: the
+   * totals, a "summary" with the aggregate stats of each pass and a "log"
+   * with the stats of each run.
+   */
+  public JsonObject toJson() {
+    calcTotalStats();
+    JsonObject json = new JsonObject();
+    json.addProperty("runtime", runtime);
+    json.addProperty("runs", runs);
+    json.addProperty("changingRuns", changes);
+    json.addProperty("loopRuns", loopRuns);
+    json.addProperty("changingLoopRuns", loopChanges);
+    json.addProperty("reduction", diff);
+    json.addProperty("gzReduction", gzDiff);
+    json.addProperty("size", codeSize);
+    json.addProperty("gzSize", gzCodeSize);
+    json.addProperty("astReduction", astDiff);
+    json.addProperty("astSize", astSize);
+    json.addProperty("allocMem", allocMem);
+
+    JsonArray summaryJson = new JsonArray();
+    for (Stats stats : summary.values()) {
+      summaryJson.add(stats.toJson());
+    }
+    json.add("summary", summaryJson);
+
+    JsonArray logJson = new JsonArray();
+    for (Stats stats : log) {
+      logJson.add(stats.toJson());
+    }
+    json.add("log", logJson);
+    return json;
+  }
+
+  private static final ThreadMXBean threadBean =
+      ManagementFactory.getThreadMXBean();
+
+  /**
+   * Returns the bytes allocated so far by the current thread, which the
+   * compiler passes run on, or 0 if the JVM does not measure them.
+   */
+  private static long getAllocatedBytes() {
+    if (threadBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean =
+          (com.sun.management.ThreadMXBean) threadBean;
+      if (bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return 0;
+  }
+
   /**
    * A Stats object contains statistics about a pass run, such as running time,
    * size changes, etc
@@ -329,6 +434,29 @@ public final class PerformanceTracker {
     public int gzDiff = 0;
     public int size;
     public int gzSize;
+    public int astDiff = 0;
+    public int astSize;
+    public long allocMem = 0;
+
+    // The bytes the thread had allocated when the pass started.
+    private long allocStart;
+
+    private JsonObject toJson() {
+      JsonObject json = new JsonObject();
+      json.addProperty("pass", pass);
+      json.addProperty("isOneTime", isOneTime);
+      json.addProperty("runtime", runtime);
+      json.addProperty("runs", runs);
+      json.addProperty("changingRuns", changes);
+      json.addProperty("reduction", diff);
+      json.addProperty("gzReduction", gzDiff);
+      json.addProperty("size", size);
+      json.addProperty("gzSize", gzSize);
+      json.addProperty("astReduction", astDiff);
+      json.addProperty("astSize", astSize);
+      json.addProperty("allocMem", allocMem);
+      return json;
+    }
   }
 
   /** An object to get a gzsize estimate; it doesn't generate code. */
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Preconditions;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.InputId;
+import com.google.javascript.rhino.Node;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+
+/**
+ * The AST of a source file that was parsed ahead of time, by a compiler run
+ * with --ast_output_dir, and is read back from disk instead of being parsed
+ * again.
+ *
+ * The written AST refers to its source file by position only, so the file
+ * given here is the one the AST is attached to once it is read.
+ */
+@GwtIncompatible("java.io.ObjectInputStream")
+public class SerializedAst implements SourceAst {
+  private static final long serialVersionUID = 1L;
+
+  /** Changes whenever ASTs written by older compilers can no longer be read. */
+  private static final int FORMAT_VERSION = 1;
+
+  private transient InputId inputId;
+  private transient SourceFile sourceFile;
+  private final String fileName;
+  private final String astFileName;
+  private transient Node root;
+
+  /**
+   * @param sourceFile The source file the AST was parsed from.
+   * @param astFileName The file the AST was written to.
+   */
+  public SerializedAst(SourceFile sourceFile, String astFileName) {
+    this.inputId = new InputId(sourceFile.getName());
+    this.sourceFile = sourceFile;
+    this.fileName = sourceFile.getName();
+    this.astFileName = astFileName;
+  }
+
+  @Override
+  public Node getAstRoot(AbstractCompiler compiler) {
+    if (root == null) {
+      read(compiler);
+      root.setInputId(inputId);
+    }
+    return root;
+  }
+
+  @Override
+  public void clearAst() {
+    root = null;
+    sourceFile.clearCachedSource();
+  }
+
+  @Override
+  public InputId getInputId() {
+    return inputId;
+  }
+
+  @Override
+  public SourceFile getSourceFile() {
+    return sourceFile;
+  }
+
+  @Override
+  public void setSourceFile(SourceFile file) {
+    Preconditions.checkState(fileName.equals(file.getName()));
+    sourceFile = file;
+  }
+
+  private void read(AbstractCompiler compiler) {
+    try (InputStream in =
+             new BufferedInputStream(new FileInputStream(astFileName))) {
+      root = readAst(in, sourceFile);
+    } catch (IOException e) {
+      compiler.report(
+          JSError.make(AbstractCompiler.READ_ERROR, astFileName));
+      root = IR.script();
+    }
+    root.setStaticSourceFile(sourceFile);
+  }
+
+  /**
+   * Writes the AST of a parsed source file. Every reference to a
+   * {@link SourceFile} is written as a placeholder for the file the AST is
+   * read back with.
+   */
+  static void writeAst(Node root, OutputStream out) throws IOException {
+    AstOutputStream objects = new AstOutputStream(out);
+    objects.writeInt(FORMAT_VERSION);
+    objects.writeObject(root);
+    objects.flush();
+  }
+
+  /** Reads an AST written by {@link #writeAst}, for the given source file. */
+  static Node readAst(InputStream in, SourceFile sourceFile)
+      throws IOException {
+    AstInputStream objects = new AstInputStream(in, sourceFile);
+    int version = objects.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Unsupported AST format version: " + version);
+    }
+    try {
+      return (Node) objects.readObject();
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /** Stands in for the source file of a written AST. */
+  private enum SourceFilePlaceholder {
+    INSTANCE
+  }
+
+  private static class AstOutputStream extends ObjectOutputStream {
+    AstOutputStream(OutputStream out) throws IOException {
+      super(out);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return obj instanceof SourceFile ? SourceFilePlaceholder.INSTANCE : obj;
+    }
+  }
+
+  private static class AstInputStream extends ObjectInputStream {
+    private final SourceFile sourceFile;
+
+    AstInputStream(InputStream in, SourceFile sourceFile) throws IOException {
+      super(in);
+      this.sourceFile = sourceFile;
+      enableResolveObject(true);
+    }
+
+    @Override
+    protected Object resolveObject(Object obj) {
+      return obj == SourceFilePlaceholder.INSTANCE ? sourceFile : obj;
+    }
+
+    /**
+     * AST files may come from a shared cache, so only the classes an AST can
+     * contain are read, rather than any serializable class on the classpath.
+     */
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+      if (!isAstClass(desc.getName())) {
+        throw new InvalidClassException(desc.getName(),
+            "not a class that an AST can contain");
+      }
+      return super.resolveClass(desc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces)
+        throws InvalidClassException {
+      throw new InvalidClassException("An AST can not contain proxy classes");
+    }
+
+    private static boolean isAstClass(String name) {
+      if (name.startsWith("[")) {
+        String component = name.replaceFirst("^\\[+", "");
+        if (!component.startsWith("L")) {
+          return true;  // An array of primitives.
+        }
+        name = component.substring(1, component.length() - 1);
+      }
+      return name.startsWith("com.google.javascript.rhino.")
+          || name.startsWith("com.google.javascript.jscomp.")
+          || (name.startsWith("com.google.common.collect.")
+              && name.contains("Immutable"))
+          || isInPackage(name, "java.lang")
+          || isInPackage(name, "java.util");
+    }
+
+    private static boolean isInPackage(String name, String packageName) {
+      return name.startsWith(packageName + ".")
+          && name.indexOf('.', packageName.length() + 1) == -1;
+    }
+  }
+}
@@ -78,8 +78,9 @@ public class SourceFile implements StaticSourceFile, Serializable {
   // from a Jar, it could be the path to the Jar.
   private String originalPath = null;
 
-  // Source Line Information
-  private int[] lineOffsets = null;
+  // Source Line Information. Volatile, as externs may be shared by
+  // compilations running on other threads.
+  private volatile int[] lineOffsets = null;
 
   private String code = null;
 
@@ -124,17 +125,21 @@ public class SourceFile implements StaticSourceFile, Serializable {
     if (lineOffsets != null) {
       return;
     }
+    // Fill in a local array first, so that other threads sharing this file
+    // never see a partially computed table.
+    int[] offsets;
     try {
       String[] sourceLines = getCode().split("\n", -1);
-      lineOffsets = new int[sourceLines.length];
+      offsets = new int[sourceLines.length];
       for (int ii = 1; ii < sourceLines.length; ++ii) {
-        lineOffsets[ii] =
-            lineOffsets[ii - 1] + sourceLines[ii - 1].length() + 1;
+        offsets[ii] =
+            offsets[ii - 1] + sourceLines[ii - 1].length() + 1;
       }
     } catch (IOException e) {
-      lineOffsets = new int[1];
-      lineOffsets[0] = 0;
+      offsets = new int[1];
+      offsets[0] = 0;
     }
+    lineOffsets = offsets;
   }
 
 
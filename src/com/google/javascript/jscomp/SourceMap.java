@@ -21,6 +21,8 @@ import com.google.debugging.sourcemap.FilePosition;
 import com.google.debugging.sourcemap.SourceMapFormat;
 import com.google.debugging.sourcemap.SourceMapGenerator;
 import com.google.debugging.sourcemap.SourceMapGeneratorFactory;
+import com.google.debugging.sourcemap.SourceMapSection;
+import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.rhino.Node;
 
 import java.io.IOException;
@@ -104,7 +106,22 @@ public final class SourceMap {
     }
   }
 
+  /**
+   * Maps a position in one of the compiler's inputs to a position in the
+   * file that input was generated from, if any.
+   */
+  public interface SourceFileMapping {
+    /**
+     * Returns the original mapping for the given position, or null if the
+     * position does not come from another file. Lines are one based and
+     * columns are zero based, both in the argument and in the result.
+     */
+    OriginalMapping getSourceMapping(
+        String fileName, int lineNo, int columnNo);
+  }
+
   private final SourceMapGenerator generator;
+  private SourceFileMapping mapping;
   private List<LocationMapping> prefixMappings = Collections.emptyList();
   private final Map<String, String> sourceLocationFixupCache =
        new HashMap<>();
@@ -126,9 +143,27 @@ public final class SourceMap {
       return;
     }
 
-    sourceFile = fixupSourceLocation(sourceFile);
-
     String originalName = (String) node.getProp(Node.ORIGINALNAME_PROP);
+    int lineNo = node.getLineno();
+    int charNo = node.getCharno();
+
+    // If the input was itself generated from another file, point the
+    // mapping at that file instead.
+    if (mapping != null) {
+      OriginalMapping sourceMapping =
+          mapping.getSourceMapping(sourceFile, lineNo, charNo);
+      if (sourceMapping != null) {
+        sourceFile = sourceMapping.getOriginalFile();
+        lineNo = sourceMapping.getLineNumber();
+        charNo = sourceMapping.getColumnPosition();
+        String identifier = sourceMapping.getIdentifier();
+        if (!identifier.isEmpty()) {
+          originalName = identifier;
+        }
+      }
+    }
+
+    sourceFile = fixupSourceLocation(sourceFile);
 
     // Rhino source lines are one based but for v3 source maps, we make
     // them zero based.
@@ -136,7 +171,7 @@ public final class SourceMap {
 
     generator.addMapping(
         sourceFile, originalName,
-        new FilePosition(node.getLineno() - lineBaseOffset, node.getCharno()),
+        new FilePosition(lineNo - lineBaseOffset, charNo),
         outputStartPosition, outputEndPosition);
   }
 
@@ -176,6 +211,16 @@ public final class SourceMap {
     generator.appendTo(out, fixupSourceLocation(name));
   }
 
+  /**
+   * Writes an index map whose sections are the given, already serialized,
+   * source maps.
+   */
+  public void appendIndexMapTo(
+      Appendable out, String name, List<SourceMapSection> sections)
+      throws IOException {
+    generator.appendIndexMapTo(out, fixupSourceLocation(name), sections);
+  }
+
   public void reset() {
     generator.reset();
     sourceLocationFixupCache.clear();
@@ -193,6 +238,14 @@ public final class SourceMap {
     generator.validate(validate);
   }
 
+  /**
+   * Sets the mapping used to compose the mappings of this source map with
+   * those of the compiler's input source maps.
+   */
+  public void setSourceFileMapping(SourceFileMapping mapping) {
+    this.mapping = mapping;
+  }
+
   /**
    * @param sourceMapLocationMappings
    */
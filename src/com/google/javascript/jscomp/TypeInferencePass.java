@@ -17,13 +17,23 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.javascript.jscomp.CodingConvention.AssertionFunctionSpec;
 import com.google.javascript.jscomp.NodeTraversal.AbstractScopedCallback;
 import com.google.javascript.jscomp.type.ReverseAbstractInterpreter;
 import com.google.javascript.rhino.Node;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * A compiler pass to run the type inference analysis.
@@ -41,6 +51,15 @@ class TypeInferencePass implements CompilerPass {
   private final MemoizedScopeCreator scopeCreator;
   private final Map<String, AssertionFunctionSpec> assertionFunctionsMap;
 
+  /**
+   * The number of control flow graphs that may be built ahead of inference,
+   * per worker thread.
+   */
+  private static final int MAX_PENDING_CFGS_PER_THREAD = 4;
+
+  /** Supplies prebuilt control flow graphs, or null to build them inline. */
+  private ControlFlowGraphPipeline cfgPipeline = null;
+
   TypeInferencePass(AbstractCompiler compiler,
       ReverseAbstractInterpreter reverseInterpreter,
       TypedScope topScope, MemoizedScopeCreator scopeCreator) {
@@ -98,23 +117,45 @@ class TypeInferencePass implements CompilerPass {
     // ns.method();
     // In this code, we need to build the symbol table for the inner scope in
     // order to propagate the type of ns.method in the outer scope.
-    (new NodeTraversal(
-        compiler, new FirstScopeBuildingCallback(), scopeCreator))
+    //
+    // Inference of a scope may depend on what was inferred in the scopes
+    // before it, and it updates types shared by all scopes, so the scopes
+    // are always inferred one at a time. With several prefetch threads,
+    // only the control flow graphs, which depend on nothing but
+    // the AST, are built on worker threads ahead of the inference.
+    int numThreads = compiler.getOptions().getNumCfgPrefetchThreads();
+    FirstScopeBuildingCallback first =
+        new FirstScopeBuildingCallback(numThreads > 1);
+    (new NodeTraversal(compiler, first, scopeCreator))
         .traverseWithScope(node, topScope);
 
     for (TypedScope s : scopeCreator.getAllMemoizedScopes()) {
       s.resolveTypes();
     }
 
-    (new NodeTraversal(
-        compiler, new SecondScopeBuildingCallback(), scopeCreator))
-        .traverseWithScope(node, topScope);
+    if (numThreads > 1 && first.scopeRoots.size() > 1) {
+      cfgPipeline = new ControlFlowGraphPipeline(
+          first.scopeRoots,
+          Math.min(numThreads, first.scopeRoots.size()));
+    }
+    try {
+      (new NodeTraversal(
+          compiler, new SecondScopeBuildingCallback(), scopeCreator))
+          .traverseWithScope(node, topScope);
+    } finally {
+      if (cfgPipeline != null) {
+        cfgPipeline.shutdown();
+        cfgPipeline = null;
+      }
+    }
   }
 
   void inferScope(Node n, TypedScope scope) {
     TypeInference typeInference =
         new TypeInference(
-            compiler, computeCfg(n), reverseInterpreter, scope,
+            compiler,
+            cfgPipeline != null ? cfgPipeline.take(n) : computeCfg(n),
+            reverseInterpreter, scope,
             assertionFunctionsMap);
     try {
       typeInference.analyze();
@@ -128,9 +169,22 @@ class TypeInferencePass implements CompilerPass {
   }
 
   private static class FirstScopeBuildingCallback extends AbstractScopedCallback {
+    /**
+     * The nodes the second pass will infer, in order, or null if they are
+     * not needed.
+     */
+    final List<Node> scopeRoots;
+
+    FirstScopeBuildingCallback(boolean collectScopeRoots) {
+      this.scopeRoots = collectScopeRoots ? new ArrayList<Node>() : null;
+    }
+
     @Override
     public void enterScope(NodeTraversal t) {
       t.getTypedScope();
+      if (scopeRoots != null) {
+        scopeRoots.add(t.getCurrentNode());
+      }
     }
 
     @Override
@@ -159,4 +213,64 @@ class TypeInferencePass implements CompilerPass {
     cfa.process(null, n);
     return cfa.getCfg();
   }
+
+  /**
+   * Builds the control flow graphs of the scopes to infer on worker threads,
+   * in the order in which they will be inferred, staying a bounded number of
+   * scopes ahead of the compiler thread.
+   *
+   * Building a graph only reads the AST, and type inference only writes the
+   * types of nodes, so the graphs are the same as if they were built inline.
+   */
+  private class ControlFlowGraphPipeline {
+    private final List<Node> scopeRoots;
+    private final ExecutorService workers;
+    private final int maxPending;
+    private final Deque<Future<ControlFlowGraph<Node>>> pending =
+        new ArrayDeque<>();
+    private int nextToSubmit = 0;
+    private int nextToTake = 0;
+
+    ControlFlowGraphPipeline(List<Node> scopeRoots, int numThreads) {
+      this.scopeRoots = scopeRoots;
+      this.workers = CompilerExecutor.newWorkerPool(
+          numThreads, "jscompiler-cfg");
+      this.maxPending = MAX_PENDING_CFGS_PER_THREAD * numThreads;
+      submitPending();
+    }
+
+    /**
+     * Returns the control flow graph of the given scope root, building it
+     * inline if it is not the next one in the pipeline.
+     */
+    ControlFlowGraph<Node> take(Node n) {
+      if (nextToTake >= scopeRoots.size() || scopeRoots.get(nextToTake) != n) {
+        return computeCfg(n);
+      }
+      nextToTake++;
+      Future<ControlFlowGraph<Node>> future = pending.remove();
+      submitPending();
+      try {
+        return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+
+    private void submitPending() {
+      while (nextToSubmit < scopeRoots.size() && pending.size() < maxPending) {
+        final Node root = scopeRoots.get(nextToSubmit++);
+        pending.add(workers.submit(new Callable<ControlFlowGraph<Node>>() {
+          @Override
+          public ControlFlowGraph<Node> call() {
+            return computeCfg(root);
+          }
+        }));
+      }
+    }
+
+    void shutdown() {
+      workers.shutdownNow();
+    }
+  }
 }
@@ -44,8 +44,11 @@ import com.google.javascript.rhino.jstype.UnknownType;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import javax.annotation.Nullable;
@@ -76,6 +79,17 @@ class TypeValidator {
   private final List<TypeMismatch> implicitStructuralInterfaceUses =
       new ArrayList<>();
 
+  // The same pair of types is usually validated many times over. Each type
+  // gets a small id, and each pair of ids is only recorded once.
+  private final Map<JSType, Integer> typeIds = new IdentityHashMap<>();
+  private final TypePairSet mismatchPairs = new TypePairSet();
+  private final TypePairSet implicitStructuralInterfacePairs =
+      new TypePairSet();
+  // When property invalidation errors are requested, DisambiguateProperties
+  // lists every site at which a pair of types was mixed, so each of them is
+  // recorded.
+  private final boolean recordEveryMismatchSite;
+
   // User warnings
   private static final String FOUND_REQUIRED =
       "{0}\n" +
@@ -161,6 +175,10 @@ class TypeValidator {
         NULL_TYPE, VOID_TYPE);
     this.reportUnnecessaryCasts = ((Compiler) compiler).getOptions().enables(
         DiagnosticGroups.UNNECESSARY_CASTS);
+    Map<String, CheckLevel> propertyInvalidationErrors =
+        compiler.getOptions().propertyInvalidationErrors;
+    this.recordEveryMismatchSite = propertyInvalidationErrors != null
+        && !propertyInvalidationErrors.isEmpty();
   }
 
   /**
@@ -742,9 +760,17 @@ class TypeValidator {
   }
 
   private void mismatch(Node n, String msg, JSType found, JSType required) {
-    registerMismatch(found, required, report(
-        JSError.make(n, TYPE_MISMATCH_WARNING,
-                     formatFoundRequired(msg, found, required))));
+    // Formatting the types can be expensive, so don't do it for a warning
+    // that is turned off, unless a later pass asks for it.
+    JSError unformatted = JSError.make(n, TYPE_MISMATCH_WARNING, msg);
+    if (compiler.getErrorLevel(unformatted) == CheckLevel.OFF) {
+      registerMismatch(found, required,
+          new MismatchSource(n, msg, found, required));
+    } else {
+      registerMismatch(found, required, new MismatchSource(report(
+          JSError.make(n, TYPE_MISMATCH_WARNING,
+                       formatFoundRequired(msg, found, required)))));
+    }
   }
 
   private void recordStructuralInterfaceUses(JSType found, JSType required) {
@@ -753,27 +779,60 @@ class TypeValidator {
         && !required.isSubtypeWithoutStructuralTyping(found);
     boolean mismatch = !found.isSubtype(required) && !required.isSubtype(found);
     if (strictMismatch && !mismatch) {
-      implicitStructuralInterfaceUses.add(new TypeMismatch(found, required, null));
+      recordImplicitStructuralInterfaceUse(found, required, null);
+    }
+  }
+
+  private void recordImplicitStructuralInterfaceUse(
+      JSType found, JSType required, MismatchSource source) {
+    if (implicitStructuralInterfacePairs.add(
+            getTypeId(found), getTypeId(required))
+        || recordEveryMismatchSite) {
+      implicitStructuralInterfaceUses.add(
+          new TypeMismatch(found, required, source));
+    }
+  }
+
+  private int getTypeId(JSType type) {
+    Integer id = typeIds.get(type);
+    if (id == null) {
+      id = typeIds.size();
+      typeIds.put(type, id);
     }
+    return id;
   }
 
   private void registerMismatch(JSType found, JSType required, JSError error) {
+    registerMismatch(found, required, new MismatchSource(error));
+  }
+
+  private void registerMismatch(
+      JSType found, JSType required, MismatchSource source) {
     // Don't register a mismatch for differences in null or undefined or if the
     // code didn't downcast.
     found = found.restrictByNotNullOrUndefined();
     required = required.restrictByNotNullOrUndefined();
 
+    int foundId = getTypeId(found);
+    int requiredId = getTypeId(required);
+    if (!recordEveryMismatchSite
+        && mismatchPairs.contains(foundId, requiredId)) {
+      // Already recorded, along with any mismatches of function signatures.
+      return;
+    }
+
     if (found.isSubtype(required) || required.isSubtype(found)) {
       boolean strictMismatch =
         !found.isSubtypeWithoutStructuralTyping(required)
         && !required.isSubtypeWithoutStructuralTyping(found);
       if (strictMismatch) {
-        implicitStructuralInterfaceUses.add(new TypeMismatch(found, required, error));
+        recordImplicitStructuralInterfaceUse(found, required, source);
       }
       return;
     }
 
-    mismatches.add(new TypeMismatch(found, required, error));
+    mismatchPairs.add(foundId, requiredId);
+    mismatches.add(new TypeMismatch(found, required, source));
 
     if (found.isFunctionType() &&
         required.isFunctionType()) {
@@ -783,19 +842,19 @@ class TypeValidator {
       Iterator<Node> paramItB = fnTypeB.getParameters().iterator();
       while (paramItA.hasNext() && paramItB.hasNext()) {
         registerIfMismatch(paramItA.next().getJSType(),
-            paramItB.next().getJSType(), error);
+            paramItB.next().getJSType(), source);
       }
 
       registerIfMismatch(
-          fnTypeA.getReturnType(), fnTypeB.getReturnType(), error);
+          fnTypeA.getReturnType(), fnTypeB.getReturnType(), source);
     }
   }
 
   private void registerIfMismatch(
-      JSType found, JSType required, JSError error) {
+      JSType found, JSType required, MismatchSource source) {
     if (found != null && required != null &&
         !found.isSubtypeWithoutStructuralTyping(required)) {
-      registerMismatch(found, required, error);
+      registerMismatch(found, required, source);
     }
   }
 
@@ -849,7 +908,7 @@ class TypeValidator {
   static class TypeMismatch {
     final JSType typeA;
     final JSType typeB;
-    final JSError src;
+    private final MismatchSource source;
 
     /**
      * It's the responsibility of the class that creates the
@@ -857,9 +916,22 @@ class TypeValidator {
      * non-matching types.
      */
     TypeMismatch(JSType a, JSType b, JSError src) {
+      this(a, b, src == null ? null : new MismatchSource(src));
+    }
+
+    private TypeMismatch(JSType a, JSType b, MismatchSource source) {
       this.typeA = a;
       this.typeB = b;
-      this.src = src;
+      this.source = source;
+    }
+
+    /**
+     * Returns the warning that caused this mismatch, or null if there is
+     * none. The warning's message is formatted on the first call if the
+     * warning was turned off when the mismatch was found.
+     */
+    JSError getSource() {
+      return source == null ? null : source.getError();
     }
 
     @Override public boolean equals(Object object) {
@@ -881,4 +953,108 @@ class TypeValidator {
       return "(" + typeA + ", " + typeB + ")";
     }
   }
+
+  /**
+   * The warning for a type mismatch. The warning is only formatted when it
+   * is first asked for, since most mismatch warnings that are turned off
+   * are never looked at.
+   */
+  private static final class MismatchSource {
+    private JSError error;
+    private Node node;
+    private String msg;
+    private JSType found;
+    private JSType required;
+
+    MismatchSource(JSError error) {
+      this.error = error;
+    }
+
+    MismatchSource(Node node, String msg, JSType found, JSType required) {
+      this.node = node;
+      this.msg = msg;
+      this.found = found;
+      this.required = required;
+    }
+
+    JSError getError() {
+      if (error == null) {
+        error = JSError.make(node, TYPE_MISMATCH_WARNING,
+            formatFoundRequired(msg, found, required));
+        node = null;
+        msg = null;
+        found = null;
+        required = null;
+      }
+      return error;
+    }
+  }
+
+  /**
+   * An unordered set of pairs of type ids, in an open-addressed table of
+   * longs.
+   */
+  private static final class TypePairSet {
+    private static final long EMPTY = -1L;
+
+    private long[] table = newTable(16);
+    private int size = 0;
+
+    private static long[] newTable(int capacity) {
+      long[] table = new long[capacity];
+      Arrays.fill(table, EMPTY);
+      return table;
+    }
+
+    private static long key(int a, int b) {
+      return a < b
+          ? ((long) a << 32) | b
+          : ((long) b << 32) | a;
+    }
+
+    private static int indexFor(long key, int mask) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h >>> 32) & mask;
+    }
+
+    boolean contains(int a, int b) {
+      long key = key(a, b);
+      int mask = table.length - 1;
+      for (int i = indexFor(key, mask); table[i] != EMPTY;
+           i = (i + 1) & mask) {
+        if (table[i] == key) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** Adds the pair, and returns whether it was not already present. */
+    boolean add(int a, int b) {
+      if (contains(a, b)) {
+        return false;
+      }
+      if (2 * (size + 1) > table.length) {
+        long[] oldTable = table;
+        table = newTable(oldTable.length * 2);
+        for (long key : oldTable) {
+          if (key != EMPTY) {
+            insert(key);
+          }
+        }
+      }
+      insert(key(a, b));
+      size++;
+      return true;
+    }
+
+    private void insert(long key) {
+      int mask = table.length - 1;
+      int i = indexFor(key, mask);
+      while (table[i] != EMPTY) {
+        i = (i + 1) & mask;
+      }
+      table[i] = key;
+    }
+  }
 }
@@ -153,6 +153,10 @@ final class TypedScopeCreator implements ScopeCreator {
   private final Map<String, String> delegateCallingConventions =
        new HashMap<>();
 
+  // The script that declared each global type name in the registry, so
+  // that patching a script can retract the names it contributed.
+  private final Map<String, String> typeNameSources = new HashMap<>();
+
   // Simple properties inferred about functions.
   private final Map<Node, AstFunctionContents> functionAnalysisResults =
        new LinkedHashMap<>();
@@ -275,8 +279,25 @@ final class TypedScopeCreator implements ScopeCreator {
     (new FirstOrderFunctionAnalyzer(
         compiler, functionAnalysisResults)).process(null, scriptRoot);
 
-    // TODO(bashir): Variable declaration is not the only side effect of last
-    // global scope generation but here we only wipe that part off!
+    // Retract the type names that this script declared, so that its
+    // constructors, interfaces, enums and typedefs are built afresh instead
+    // of being matched against their previous versions.
+    Iterator<Map.Entry<String, String>> typeNameIter =
+        typeNameSources.entrySet().iterator();
+    while (typeNameIter.hasNext()) {
+      Map.Entry<String, String> entry = typeNameIter.next();
+      if (scriptName.equals(entry.getValue())) {
+        typeRegistry.undeclareType(entry.getKey());
+        typeNameIter.remove();
+      }
+    }
+    NodeTraversal.traverseTyped(
+        compiler, scriptRoot, new DiscoverEnumsAndTypedefs(typeRegistry));
+
+    // Undeclaring a type also retracts the properties registered on it.
+    // Properties that the script registered on types declared by other
+    // scripts are not retracted. They only make the property checks more
+    // lenient.
 
     // Remove all variables that were previously declared in this scripts.
     // First find all vars to remove then remove them because of iterator!
@@ -296,6 +317,11 @@ final class TypedScopeCreator implements ScopeCreator {
     // Now re-traverse the given script.
     GlobalScopeBuilder scopeBuilder = new GlobalScopeBuilder(globalScope);
     NodeTraversal.traverseTyped(compiler, scriptRoot, scopeBuilder);
+    scopeBuilder.resolveStubDeclarations();
+
+    // The types attached to the script are resolved by the next inference
+    // run, as they were when the scope was first created.
+    globalScope.setTypeResolver(scopeBuilder);
   }
 
   /**
@@ -452,6 +478,22 @@ final class TypedScopeCreator implements ScopeCreator {
       deferredSetTypes.add(new DeferredSetType(node, type));
     }
 
+    /**
+     * Declares a global type name in the registry, remembering which script
+     * declared it.
+     */
+    void declareTypeName(String name, JSType type) {
+      if (typeRegistry.declareType(name, type)) {
+        recordTypeNameSource(name);
+      }
+    }
+
+    void recordTypeNameSource(String name) {
+      if (sourceName != null) {
+        typeNameSources.put(name, sourceName);
+      }
+    }
+
     @Override
     public void resolveTypes() {
       // Resolve types and attach them to nodes.
@@ -882,7 +924,7 @@ final class TypedScopeCreator implements ScopeCreator {
             // TODO(nick): Remove this. This should already be handled by
             // normal type resolution.
             if (name != null && scope.isGlobal()) {
-              typeRegistry.declareType(name, functionType.getInstanceType());
+              declareTypeName(name, functionType.getInstanceType());
             }
           }
         }
@@ -977,9 +1019,16 @@ final class TypedScopeCreator implements ScopeCreator {
             builder.inferThisType(info);
           }
 
+          boolean wasDeclared =
+              name == null || typeRegistry.getType(name) != null;
           functionType = builder
               .inferParameterTypes(parametersNode, info)
               .buildAndRegister();
+          if (!wasDeclared && scope.isGlobal() &&
+              functionType.hasInstanceType() &&
+              typeRegistry.getType(name) == functionType.getInstanceType()) {
+            recordTypeNameSource(name);
+          }
         }
       }
       // set structural interface matching flag
@@ -1099,7 +1148,7 @@ final class TypedScopeCreator implements ScopeCreator {
       }
 
       if (name != null && scope.isGlobal()) {
-        typeRegistry.declareType(name, enumType.getElementsType());
+        declareTypeName(name, enumType.getElementsType());
       }
 
       return enumType;
@@ -1916,7 +1965,7 @@ final class TypedScopeCreator implements ScopeCreator {
       // TODO(nicksantos|user): This is a terrible, terrible hack
       // to bail out on recursive typedefs. We'll eventually need
       // to handle these properly.
-      typeRegistry.declareType(typedef, unknownType);
+      declareTypeName(typedef, unknownType);
 
       JSType realType = info.getTypedefType().evaluate(scope, typeRegistry);
       if (realType == null) {
@@ -0,0 +1,511 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A persistent map implemented as a hash array mapped trie.
+ *
+ * Each node of the trie is indexed by five bits of the key hashes, and
+ * stores its entries inline in an array with one slot per used index, so
+ * a small map is a single array. Adding or removing a key copies only the
+ * nodes on the path to it, and shares the rest with the original map.
+ *
+ * Keys must not be null, but values may be, as in the maps this replaced.
+ * A null value is told apart from a missing key by containsKey().
+ *
+ * The keys in the new type inference are strings, which cache their hash
+ * codes, so a lookup costs one string comparison per hit and no hashing.
+ */
+final class HamtPersistentMap<K, V> extends PersistentMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final HamtPersistentMap<Object, Object> EMPTY =
+      new HamtPersistentMap<>(null, 0);
+
+  // Null for the empty map.
+  private final Node root;
+  private final int size;
+
+  private HamtPersistentMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  @Override
+  public PersistentMap<K, V> with(K key, V value) {
+    Preconditions.checkNotNull(key);
+    int hash = key.hashCode();
+    Leaf oldLeaf = root == null ? null : root.find(0, hash, key);
+    if (oldLeaf != null && oldLeaf.getValue() == value) {
+      return this;
+    }
+    Node newRoot = root == null
+        ? new BitmapNode(null, bitpos(hash, 0), new Object[] {
+            new Leaf(key, value)})
+        : root.with(null, 0, hash, new Leaf(key, value));
+    return new HamtPersistentMap<>(newRoot, oldLeaf == null ? size + 1 : size);
+  }
+
+  @Override
+  public PersistentMap<K, V> without(K key) {
+    if (key == null || root == null
+        || root.find(0, key.hashCode(), key) == null) {
+      return this;
+    }
+    Node newRoot = root.without(null, 0, key.hashCode(), key);
+    return size == 1 ? HamtPersistentMap.<K, V>empty()
+        : new HamtPersistentMap<K, V>(newRoot, size - 1);
+  }
+
+  @Override
+  public Builder<K, V> toBuilder() {
+    return new HamtBuilder<>(root, size);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (key == null || root == null) {
+      return null;
+    }
+    Leaf leaf = root.find(0, key.hashCode(), key);
+    return leaf == null ? null : (V) leaf.getValue();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key != null && root != null
+        && root.find(0, key.hashCode(), key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new EntryIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private static int bitpos(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static boolean keyEquals(Object k1, Object k2) {
+    return k1 == k2 || k1.equals(k2);
+  }
+
+  /** A key-value pair, shared by all the maps that contain it. */
+  private static final class Leaf
+      extends AbstractMap.SimpleImmutableEntry<Object, Object> {
+    private static final long serialVersionUID = 1L;
+
+    Leaf(Object key, Object value) {
+      super(key, value);
+    }
+  }
+
+  /**
+   * A node of the trie. Nodes created by a builder are owned by it, and the
+   * builder changes them in place; all other nodes are never changed.
+   */
+  private abstract static class Node {
+    // The builder that may change this node, or null.
+    final Object owner;
+
+    Node(Object owner) {
+      this.owner = owner;
+    }
+
+    abstract Leaf find(int shift, int hash, Object key);
+
+    /**
+     * Returns a node with the given leaf added, replacing any leaf with the
+     * same key, or this node if it was changed in place.
+     */
+    abstract Node with(Object owner, int shift, int hash, Leaf leaf);
+
+    /**
+     * Returns a node without the given key, which must be present, or null
+     * if no entries remain.
+     */
+    abstract Node without(Object owner, int shift, int hash, Object key);
+
+    /** Returns the slots of this node, each a leaf or a child node. */
+    abstract Object[] slots();
+  }
+
+  private static final class BitmapNode extends Node {
+    int bitmap;
+    // One leaf or child node for each bit set in the bitmap, in bit order.
+    Object[] slots;
+
+    BitmapNode(Object owner, int bitmap, Object[] slots) {
+      super(owner);
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    @Override
+    Leaf find(int shift, int hash, Object key) {
+      int bit = bitpos(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = slots[index(bit)];
+      if (slot instanceof Leaf) {
+        Leaf leaf = (Leaf) slot;
+        return keyEquals(leaf.getKey(), key) ? leaf : null;
+      }
+      return ((Node) slot).find(shift + BITS, hash, key);
+    }
+
+    @Override
+    Node with(Object owner, int shift, int hash, Leaf leaf) {
+      int bit = bitpos(hash, shift);
+      int i = index(bit);
+      if ((bitmap & bit) == 0) {
+        int n = slots.length;
+        Object[] newSlots = new Object[n + 1];
+        System.arraycopy(slots, 0, newSlots, 0, i);
+        newSlots[i] = leaf;
+        System.arraycopy(slots, i, newSlots, i + 1, n - i);
+        if (owner != null && this.owner == owner) {
+          this.bitmap |= bit;
+          this.slots = newSlots;
+          return this;
+        }
+        return new BitmapNode(owner, bitmap | bit, newSlots);
+      }
+      Object slot = slots[i];
+      Object newSlot;
+      if (slot instanceof Leaf) {
+        Leaf oldLeaf = (Leaf) slot;
+        newSlot = keyEquals(oldLeaf.getKey(), leaf.getKey())
+            ? leaf : createNode(owner, shift + BITS, oldLeaf, hash, leaf);
+      } else {
+        newSlot = ((Node) slot).with(owner, shift + BITS, hash, leaf);
+        if (newSlot == slot) {
+          return this;
+        }
+      }
+      return withSlot(owner, i, newSlot);
+    }
+
+    @Override
+    Node without(Object owner, int shift, int hash, Object key) {
+      int bit = bitpos(hash, shift);
+      int i = index(bit);
+      Object slot = slots[i];
+      if (slot instanceof Node) {
+        Node child = ((Node) slot).without(owner, shift + BITS, hash, key);
+        if (child != null) {
+          // Pull a lone leaf up, so that removals leave no chains of nodes.
+          Object[] childSlots = child.slots();
+          Object newSlot = childSlots.length == 1
+              && childSlots[0] instanceof Leaf ? childSlots[0] : child;
+          return newSlot == slot ? this : withSlot(owner, i, newSlot);
+        }
+      }
+      if (bitmap == bit) {
+        return null;
+      }
+      int n = slots.length;
+      Object[] newSlots = new Object[n - 1];
+      System.arraycopy(slots, 0, newSlots, 0, i);
+      System.arraycopy(slots, i + 1, newSlots, i, n - i - 1);
+      if (owner != null && this.owner == owner) {
+        this.bitmap ^= bit;
+        this.slots = newSlots;
+        return this;
+      }
+      return new BitmapNode(owner, bitmap ^ bit, newSlots);
+    }
+
+    private Node withSlot(Object owner, int i, Object newSlot) {
+      if (owner != null && this.owner == owner) {
+        slots[i] = newSlot;
+        return this;
+      }
+      Object[] newSlots = slots.clone();
+      newSlots[i] = newSlot;
+      return new BitmapNode(owner, bitmap, newSlots);
+    }
+
+    @Override
+    Object[] slots() {
+      return slots;
+    }
+  }
+
+  /** A node for keys whose hash codes are equal. */
+  private static final class CollisionNode extends Node {
+    final int hash;
+    Leaf[] leaves;
+
+    CollisionNode(Object owner, int hash, Leaf[] leaves) {
+      super(owner);
+      this.hash = hash;
+      this.leaves = leaves;
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < leaves.length; i++) {
+        if (keyEquals(leaves[i].getKey(), key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    Leaf find(int shift, int hash, Object key) {
+      if (hash != this.hash) {
+        return null;
+      }
+      int i = indexOf(key);
+      return i == -1 ? null : leaves[i];
+    }
+
+    @Override
+    Node with(Object owner, int shift, int hash, Leaf leaf) {
+      if (hash != this.hash) {
+        return new BitmapNode(owner, bitpos(this.hash, shift),
+            new Object[] {this}).with(owner, shift, hash, leaf);
+      }
+      int i = indexOf(leaf.getKey());
+      Leaf[] newLeaves;
+      if (i == -1) {
+        newLeaves = new Leaf[leaves.length + 1];
+        System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+        newLeaves[leaves.length] = leaf;
+      } else if (owner != null && this.owner == owner) {
+        leaves[i] = leaf;
+        return this;
+      } else {
+        newLeaves = leaves.clone();
+        newLeaves[i] = leaf;
+      }
+      if (owner != null && this.owner == owner) {
+        this.leaves = newLeaves;
+        return this;
+      }
+      return new CollisionNode(owner, hash, newLeaves);
+    }
+
+    @Override
+    Node without(Object owner, int shift, int hash, Object key) {
+      if (leaves.length == 1) {
+        return null;
+      }
+      int i = indexOf(key);
+      Leaf[] newLeaves = new Leaf[leaves.length - 1];
+      System.arraycopy(leaves, 0, newLeaves, 0, i);
+      System.arraycopy(leaves, i + 1, newLeaves, i, leaves.length - i - 1);
+      if (owner != null && this.owner == owner) {
+        this.leaves = newLeaves;
+        return this;
+      }
+      return new CollisionNode(owner, hash, newLeaves);
+    }
+
+    @Override
+    Object[] slots() {
+      return leaves;
+    }
+  }
+
+  /**
+   * Creates a node holding two leaves whose keys differ, but whose hash
+   * codes agree up to the given shift.
+   */
+  private static Node createNode(
+      Object owner, int shift, Leaf leaf1, int hash2, Leaf leaf2) {
+    int hash1 = leaf1.getKey().hashCode();
+    if (hash1 == hash2) {
+      return new CollisionNode(owner, hash1, new Leaf[] {leaf1, leaf2});
+    }
+    int bit1 = bitpos(hash1, shift);
+    int bit2 = bitpos(hash2, shift);
+    if (bit1 == bit2) {
+      return new BitmapNode(owner, bit1, new Object[] {
+          createNode(owner, shift + BITS, leaf1, hash2, leaf2)});
+    }
+    boolean inOrder = ((hash1 >>> shift) & MASK) < ((hash2 >>> shift) & MASK);
+    return new BitmapNode(owner, bit1 | bit2, inOrder
+        ? new Object[] {leaf1, leaf2} : new Object[] {leaf2, leaf1});
+  }
+
+  /** Iterates over the leaves of a trie, depth first. */
+  private static final class EntryIterator<K, V>
+      implements Iterator<Map.Entry<K, V>> {
+    // A trie has at most seven levels of bitmap nodes above a collision
+    // node.
+    private final Object[][] stack = new Object[8][];
+    private final int[] positions = new int[8];
+    private int depth = -1;
+    private Leaf next;
+
+    EntryIterator(Node root) {
+      if (root != null) {
+        depth = 0;
+        stack[0] = root.slots();
+        advance();
+      }
+    }
+
+    private void advance() {
+      while (depth >= 0) {
+        Object[] slots = stack[depth];
+        int i = positions[depth];
+        if (i == slots.length) {
+          positions[depth] = 0;
+          depth--;
+          continue;
+        }
+        positions[depth] = i + 1;
+        if (slots[i] instanceof Leaf) {
+          next = (Leaf) slots[i];
+          return;
+        }
+        depth++;
+        stack[depth] = ((Node) slots[i]).slots();
+      }
+      next = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Leaf result = next;
+      advance();
+      return (Map.Entry<K, V>) (Map.Entry<?, ?>) result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * A builder that changes the nodes it has created in place, and copies
+   * the nodes it shares with persistent maps.
+   */
+  private static final class HamtBuilder<K, V> extends Builder<K, V> {
+    private Object owner = new Object();
+    private Node root;
+    private int size;
+
+    HamtBuilder(Node root, int size) {
+      this.root = root;
+      this.size = size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+      Preconditions.checkState(owner != null, "Builder already built");
+      if (key == null || root == null) {
+        return null;
+      }
+      Leaf leaf = root.find(0, key.hashCode(), key);
+      return leaf == null ? null : (V) leaf.getValue();
+    }
+
+    @Override
+    public Builder<K, V> put(K key, V value) {
+      Preconditions.checkState(owner != null, "Builder already built");
+      Preconditions.checkNotNull(key);
+      int hash = key.hashCode();
+      Leaf oldLeaf = root == null ? null : root.find(0, hash, key);
+      if (oldLeaf != null && oldLeaf.getValue() == value) {
+        return this;
+      }
+      root = root == null
+          ? new BitmapNode(owner, bitpos(hash, 0), new Object[] {
+              new Leaf(key, value)})
+          : root.with(owner, 0, hash, new Leaf(key, value));
+      if (oldLeaf == null) {
+        size++;
+      }
+      return this;
+    }
+
+    @Override
+    public Builder<K, V> remove(K key) {
+      Preconditions.checkState(owner != null, "Builder already built");
+      if (key != null && root != null
+          && root.find(0, key.hashCode(), key) != null) {
+        root = root.without(owner, 0, key.hashCode(), key);
+        size--;
+      }
+      return this;
+    }
+
+    @Override
+    public PersistentMap<K, V> build() {
+      Preconditions.checkState(owner != null, "Builder already built");
+      owner = null;
+      return size == 0 ? HamtPersistentMap.<K, V>empty()
+          : new HamtPersistentMap<K, V>(root, size);
+    }
+  }
+}
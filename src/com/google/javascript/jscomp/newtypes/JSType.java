@@ -20,6 +20,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
@@ -28,12 +29,14 @@ import com.google.javascript.rhino.ObjectTypeI;
 import com.google.javascript.rhino.TypeI;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  *
@@ -131,6 +134,22 @@ public abstract class JSType implements TypeI {
   // of printing the error messages.
   public static boolean mockToString = false;
 
+  /**
+   * The types created so far, keyed by their parts, so that joins and meets
+   * that produce a type again return the same instance. Equal types then
+   * usually compare by identity, and type envs share their types.
+   *
+   * The parts are compared by identity, rather than with equals, because
+   * equals on object types ignores some of their fields, eg, looseness and
+   * declared property types. The values are weak, so unused types can
+   * still be collected.
+   */
+  private static final ConcurrentMap<InternKey, JSType> internedTypes =
+      new MapMaker().weakValues().makeMap();
+
+  // Types are immutable, so the hash code is computed at most once.
+  private int hashCode = 0;
+
   private static JSType makeType(int mask,
       ImmutableSet<ObjectType> objs, String typeVar,
       ImmutableSet<EnumType> enums) {
@@ -153,13 +172,94 @@ public abstract class JSType implements TypeI {
     if (!JSType.isInhabitable(objs)) {
       return BOTTOM;
     }
+    if (typeVar != null) {
+      mask |= TYPEVAR_MASK;
+    }
+    InternKey key = new InternKey(mask, objs, typeVar, enums);
+    JSType type = internedTypes.get(key);
+    if (type != null) {
+      return type;
+    }
     if (mask == NON_SCALAR_MASK) {
-      return new ObjsType(objs);
+      type = new ObjsType(objs);
+    } else if (mask == (NON_SCALAR_MASK | NULL_MASK)) {
+      type = new NullableObjsType(objs);
+    } else {
+      type = new UnionType(mask, objs, typeVar, enums);
+    }
+    return intern(key, type);
+  }
+
+  static JSType internMaskType(int mask) {
+    InternKey key = new InternKey(mask, ImmutableSet.<ObjectType>of(), null,
+        ImmutableSet.<EnumType>of());
+    JSType type = internedTypes.get(key);
+    return type != null ? type : intern(key, new MaskType(mask));
+  }
+
+  private static JSType intern(InternKey key, JSType type) {
+    JSType existing = internedTypes.putIfAbsent(key, type);
+    return existing != null ? existing : type;
+  }
+
+  /** The parts of a type, compared by identity. */
+  private static final class InternKey {
+    private final int mask;
+    private final ImmutableSet<ObjectType> objs;
+    private final String typeVar;
+    private final ImmutableSet<EnumType> enums;
+    private final int hash;
+
+    InternKey(int mask, ImmutableSet<ObjectType> objs, String typeVar,
+        ImmutableSet<EnumType> enums) {
+      this.mask = mask;
+      this.objs = objs;
+      this.typeVar = typeVar;
+      this.enums = enums;
+      this.hash = 31 * (31 * (31 * mask + Objects.hashCode(typeVar))
+          + identityHash(objs)) + identityHash(enums);
+    }
+
+    private static int identityHash(Collection<?> elements) {
+      int hash = 1;
+      for (Object element : elements) {
+        hash = 31 * hash + System.identityHashCode(element);
+      }
+      return hash;
     }
-    if (mask == (NON_SCALAR_MASK | NULL_MASK)) {
-      return new NullableObjsType(objs);
+
+    // Sets with the same elements in a different order are different keys;
+    // that only costs some sharing.
+    private static boolean sameElements(
+        Collection<?> elements1, Collection<?> elements2) {
+      if (elements1.size() != elements2.size()) {
+        return false;
+      }
+      Iterator<?> it2 = elements2.iterator();
+      for (Object element : elements1) {
+        if (element != it2.next()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof InternKey)) {
+        return false;
+      }
+      InternKey other = (InternKey) o;
+      return hash == other.hash && mask == other.mask
+          && Objects.equals(typeVar, other.typeVar)
+          && sameElements(objs, other.objs)
+          && sameElements(enums, other.enums);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
     }
-    return new UnionType(mask, objs, typeVar, enums);
   }
 
   private static JSType makeType(int mask) {
@@ -1259,6 +1359,9 @@ public abstract class JSType implements TypeI {
     }
     Preconditions.checkArgument(o instanceof JSType);
     JSType t2 = (JSType) o;
+    if (hashCode != 0 && t2.hashCode != 0 && hashCode != t2.hashCode) {
+      return false;
+    }
     return getMask() == t2.getMask() && Objects.equals(getObjs(), t2.getObjs())
         && Objects.equals(getEnums(), t2.getEnums())
         && Objects.equals(getTypeVar(), t2.getTypeVar());
@@ -1266,7 +1369,12 @@ public abstract class JSType implements TypeI {
 
   @Override
   public int hashCode() {
-    return Objects.hash(getMask(), getObjs(), getEnums(), getTypeVar());
+    int h = hashCode;
+    if (h == 0) {
+      h = Objects.hash(getMask(), getObjs(), getEnums(), getTypeVar());
+      hashCode = h;
+    }
+    return h;
   }
 }
 
@@ -1403,7 +1511,7 @@ class MaskType extends JSType {
       case NULL_OR_STRING_MASK:
         return NULL_OR_STRING;
       default:
-        return new MaskType(mask);
+        return JSType.internMaskType(mask);
     }
   }
 
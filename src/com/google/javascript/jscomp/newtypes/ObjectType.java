@@ -42,6 +42,8 @@ final class ObjectType implements TypeWithProperties {
   private final boolean isLoose;
   private final PersistentMap<String, Property> props;
   private final ObjectKind objectKind;
+  // Object types are immutable, so the hash code is computed at most once.
+  private int hashCode = 0;
 
   // Currently, TOP_OBJECT has two conflicting roles: the supertype of all
   // object types, and the type of an empty object literal.
@@ -119,15 +121,16 @@ final class ObjectType implements TypeWithProperties {
 
   /** Construct an object with the given declared properties. */
   static ObjectType fromProperties(Map<String, Property> oldProps) {
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = PersistentMap.builder();
     for (Map.Entry<String, Property> entry : oldProps.entrySet()) {
       Property prop = entry.getValue();
       if (prop.getDeclaredType().isBottom()) {
         return BOTTOM_OBJECT;
       }
-      newProps = newProps.with(entry.getKey(), prop);
+      newProps.put(entry.getKey(), prop);
     }
-    return new ObjectType(null, newProps, null, false, ObjectKind.UNRESTRICTED);
+    return new ObjectType(
+        null, newProps.build(), null, false, ObjectKind.UNRESTRICTED);
   }
 
   static void setObjectType(NominalType builtinObject) {
@@ -210,15 +213,16 @@ final class ObjectType implements TypeWithProperties {
       return this;
     }
     FunctionType fn = this.fn == null ? null : this.fn.withLoose();
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = PersistentMap.builder();
     for (Map.Entry<String, Property> propsEntry : this.props.entrySet()) {
       String pname = propsEntry.getKey();
       Property prop = propsEntry.getValue();
       // It's wrong to warn about a possibly absent property on loose objects.
-      newProps = newProps.with(pname, prop.withRequired());
+      newProps.put(pname, prop.withRequired());
     }
     // No need to call makeObjectType; we know that the new object is inhabitable.
-    return new ObjectType(nominalType, newProps, fn, true, this.objectKind);
+    return new ObjectType(
+        nominalType, newProps.build(), fn, true, this.objectKind);
   }
 
   ObjectType withFunction(FunctionType ft, NominalType fnNominal) {
@@ -424,7 +428,7 @@ final class ObjectType implements TypeWithProperties {
   private static PersistentMap<String, Property> joinProps(
       Map<String, Property> props1, Map<String, Property> props2,
       NominalType nom1, NominalType nom2) {
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = PersistentMap.builder();
     for (String pname : Sets.union(props1.keySet(), props2.keySet())) {
       Property prop1 = getProp(props1, nom1, pname);
       Property prop2 = getProp(props2, nom2, pname);
@@ -436,37 +440,31 @@ final class ObjectType implements TypeWithProperties {
       } else {
         newProp = Property.join(prop1, prop2);
       }
-      newProps = newProps.with(pname, newProp);
+      newProps.put(pname, newProp);
     }
-    return newProps;
+    return newProps.build();
   }
 
   private static PersistentMap<String, Property> joinPropsLoosely(
       Map<String, Property> props1, Map<String, Property> props2) {
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = PersistentMap.builder();
     for (Map.Entry<String, Property> propsEntry : props1.entrySet()) {
       String pname = propsEntry.getKey();
       if (!props2.containsKey(pname)) {
-        newProps = newProps.with(pname, propsEntry.getValue().withRequired());
-      }
-      if (newProps == BOTTOM_MAP) {
-        return BOTTOM_MAP;
+        newProps.put(pname, propsEntry.getValue().withRequired());
       }
     }
     for (Map.Entry<String, Property> propsEntry : props2.entrySet()) {
       String pname = propsEntry.getKey();
       Property prop2 = propsEntry.getValue();
       if (props1.containsKey(pname)) {
-        newProps = newProps.with(pname,
+        newProps.put(pname,
             Property.join(props1.get(pname), prop2).withRequired());
       } else {
-        newProps = newProps.with(pname, prop2.withRequired());
-      }
-      if (newProps == BOTTOM_MAP) {
-        return BOTTOM_MAP;
+        newProps.put(pname, prop2.withRequired());
       }
     }
-    return newProps;
+    return newProps.build();
   }
 
   static boolean isUnionSubtype(boolean keepLoosenessOfThis,
@@ -855,7 +853,7 @@ final class ObjectType implements TypeWithProperties {
         return null;
       }
     }
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = PersistentMap.builder();
     for (String propName : t1.props.keySet()) {
       Property prop1 = t1.props.get(propName);
       Property prop2 = t2.props.get(propName);
@@ -866,9 +864,9 @@ final class ObjectType implements TypeWithProperties {
       if (p == null) {
         return null;
       }
-      newProps = newProps.with(propName, p);
+      newProps.put(propName, p);
     }
-    return makeObjectType(t1.nominalType, newProps, newFn,
+    return makeObjectType(t1.nominalType, newProps.build(), newFn,
         t1.isLoose || t2.isLoose,
         ObjectKind.join(t1.objectKind, t2.objectKind));
   }
@@ -909,18 +907,18 @@ final class ObjectType implements TypeWithProperties {
     if (concreteTypes.isEmpty()) {
       return this;
     }
-    PersistentMap<String, Property> newProps = PersistentMap.create();
+    PersistentMap.Builder<String, Property> newProps = PersistentMap.builder();
     for (Map.Entry<String, Property> propsEntry : this.props.entrySet()) {
       String pname = propsEntry.getKey();
       Property newProp =
           propsEntry.getValue().substituteGenerics(concreteTypes);
-      newProps = newProps.with(pname, newProp);
+      newProps.put(pname, newProp);
     }
     FunctionType newFn = fn == null ? null : fn.substituteGenerics(concreteTypes);
     return makeObjectType(
         nominalType == null ? null :
         nominalType.instantiateGenerics(concreteTypes),
-        newProps,
+        newProps.build(),
         newFn,
         newFn != null && newFn.isQmarkFunction() || isLoose,
         objectKind);
@@ -982,6 +980,9 @@ final class ObjectType implements TypeWithProperties {
     }
     Preconditions.checkArgument(o instanceof ObjectType);
     ObjectType obj2 = (ObjectType) o;
+    if (hashCode != 0 && obj2.hashCode != 0 && hashCode != obj2.hashCode) {
+      return false;
+    }
     return Objects.equals(fn, obj2.fn) &&
         Objects.equals(nominalType, obj2.nominalType) &&
         Objects.equals(props, obj2.props);
@@ -989,6 +990,11 @@ final class ObjectType implements TypeWithProperties {
 
   @Override
   public int hashCode() {
-    return Objects.hash(fn, props, nominalType);
+    int h = hashCode;
+    if (h == 0) {
+      h = Objects.hash(fn, props, nominalType);
+      hashCode = h;
+    }
+    return h;
   }
 }
@@ -16,38 +16,44 @@
 
 package com.google.javascript.jscomp.newtypes;
 
-import com.google.common.annotations.GwtIncompatible;
-
 import java.util.AbstractMap;
-import java.util.Map;
 
-@GwtIncompatible("Class.forName")
 /** A persistent map with non-destructive additions and removals  */
 abstract class PersistentMap<K, V> extends AbstractMap<K, V> {
 
-  private static PersistentMap EMPTY;
-  static {
-    try {
-      @SuppressWarnings("unchecked")
-      Class<? extends Map> c =
-          (Class<? extends Map>) Class.forName("clojure.lang.PersistentHashMap");
-      EMPTY = ClojurePersistentHashMap.create(c);
-    } catch (ClassNotFoundException e) {
-      EMPTY = NaivePersistentMap.create();
-    }
-  }
-
   public abstract PersistentMap<K, V> with(K key, V value);
 
   public abstract PersistentMap<K, V> without(K key);
 
-  @SuppressWarnings("unchecked")
+  /**
+   * Returns a builder for making many changes to this map at once, without
+   * allocating a new map for each of them.
+   */
+  public abstract Builder<K, V> toBuilder();
+
   public static <K, V> PersistentMap<K, V> create() {
-    return EMPTY;
+    return HamtPersistentMap.empty();
+  }
+
+  public static <K, V> Builder<K, V> builder() {
+    return PersistentMap.<K, V>create().toBuilder();
   }
 
   public static <K, V> PersistentMap<K, V> of(K key, V value) {
     return PersistentMap.<K, V>create().with(key, value);
   }
 
+  /**
+   * A mutable copy of a persistent map. The map returned by build() holds
+   * the changes; the builder must not be used after that.
+   */
+  public abstract static class Builder<K, V> {
+    public abstract V get(Object key);
+
+    public abstract Builder<K, V> put(K key, V value);
+
+    public abstract Builder<K, V> remove(K key);
+
+    public abstract PersistentMap<K, V> build();
+  }
 }
@@ -104,7 +104,8 @@ public final class TypeEnv {
     if (!envsIter.hasNext()) {
       return firstEnv;
     }
-    PersistentMap<String, JSType> newMap = firstEnv.typeMap;
+    PersistentMap.Builder<String, JSType> newMap =
+        firstEnv.typeMap.toBuilder();
 
     if (firstEnv.changedVars == null) {
       while (envsIter.hasNext()) {
@@ -120,11 +121,11 @@ public final class TypeEnv {
           Preconditions.checkNotNull(
               currentType, "%s is missing from an env", name);
           if (!currentType.equals(otherType)) {
-            newMap = newMap.with(name, JSType.join(currentType, otherType));
+            newMap.put(name, JSType.join(currentType, otherType));
           }
         }
       }
-      return new TypeEnv(newMap);
+      return new TypeEnv(newMap.build());
     }
 
     PersistentSet<String> newLog = PersistentSet.create();
@@ -139,11 +140,11 @@ public final class TypeEnv {
         JSType currentType = newMap.get(changedVar);
         JSType otherType = env.typeMap.get(changedVar);
         if (!currentType.equals(otherType)) {
-          newMap = newMap.with(changedVar, JSType.join(currentType, otherType));
+          newMap.put(changedVar, JSType.join(currentType, otherType));
         }
       }
     }
-    return new TypeEnv(newMap, newLog);
+    return new TypeEnv(newMap.build(), newLog);
   }
 
   @Override
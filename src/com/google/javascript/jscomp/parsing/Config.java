@@ -54,6 +54,19 @@ public final class Config {
    */
   final boolean isIdeMode;
 
+  /**
+   * Whether JSDoc comments that are not needed while parsing may be left
+   * unparsed until their {@code JSDocInfo} is first requested.
+   */
+  final boolean parseJsDocLazily;
+
+  /**
+   * Whether the input is minified or generated code, whose comments and
+   * JSDoc are ignored so that it can be parsed as fast as possible. Its
+   * {@code @license} and {@code @preserve} comments are still kept.
+   */
+  final boolean isBulkMode;
+
   /**
    * Recognized JSDoc annotations, mapped from their name to their internal
    * representation.
@@ -78,11 +91,27 @@ public final class Config {
   Config(Set<String> annotationWhitelist, Set<String> suppressionNames,
       boolean isIdeMode, boolean parseJsDocDocumentation, boolean preserveJsDocWhitespace,
       LanguageMode languageMode) {
+    this(annotationWhitelist, suppressionNames, isIdeMode, parseJsDocDocumentation,
+        preserveJsDocWhitespace, false, languageMode);
+  }
+
+  Config(Set<String> annotationWhitelist, Set<String> suppressionNames,
+      boolean isIdeMode, boolean parseJsDocDocumentation, boolean preserveJsDocWhitespace,
+      boolean parseJsDocLazily, LanguageMode languageMode) {
+    this(annotationWhitelist, suppressionNames, isIdeMode, parseJsDocDocumentation,
+        preserveJsDocWhitespace, parseJsDocLazily, false, languageMode);
+  }
+
+  Config(Set<String> annotationWhitelist, Set<String> suppressionNames,
+      boolean isIdeMode, boolean parseJsDocDocumentation, boolean preserveJsDocWhitespace,
+      boolean parseJsDocLazily, boolean isBulkMode, LanguageMode languageMode) {
     this.annotationNames = buildAnnotationNames(annotationWhitelist);
     this.parseJsDocDocumentation = parseJsDocDocumentation;
     this.preserveJsDocWhitespace = preserveJsDocWhitespace;
     this.suppressionNames = suppressionNames;
     this.isIdeMode = isIdeMode;
+    this.parseJsDocLazily = parseJsDocLazily;
+    this.isBulkMode = isBulkMode;
     this.languageMode = languageMode;
   }
 
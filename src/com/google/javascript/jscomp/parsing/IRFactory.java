@@ -32,10 +32,10 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.UnmodifiableIterator;
 import com.google.javascript.jscomp.parsing.Config.LanguageMode;
 import com.google.javascript.jscomp.parsing.parser.IdentifierToken;
 import com.google.javascript.jscomp.parsing.parser.LiteralToken;
+import com.google.javascript.jscomp.parsing.parser.Parser;
 import com.google.javascript.jscomp.parsing.parser.TokenType;
 import com.google.javascript.jscomp.parsing.parser.trees.AmbientDeclarationTree;
 import com.google.javascript.jscomp.parsing.parser.trees.ArrayLiteralExpressionTree;
@@ -140,13 +140,13 @@ import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.JSDocInfo.Visibility;
 import com.google.javascript.rhino.JSDocInfoBuilder;
+import com.google.javascript.rhino.LazyJSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Node.TypeDeclarationNode;
 import com.google.javascript.rhino.StaticSourceFile;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.TokenStream;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -221,7 +221,6 @@ class IRFactory {
   static final String UNDEFINED_LABEL = "undefined label \"%s\"";
 
   private final String sourceString;
-  private final List<Integer> newlines;
   private final StaticSourceFile sourceFile;
   private final String sourceName;
   private final Config config;
@@ -244,8 +243,17 @@ class IRFactory {
           "implements", "interface", "let", "package", "private", "protected",
           "public", "static", "yield");
 
+  // Annotations that must be seen while parsing, either because they change
+  // the state of the file being parsed or because passes that run during
+  // parsing read them. Comments that have one are never parsed lazily.
+  private static final ImmutableSet<String> EAGER_JSDOC_ANNOTATIONS =
+      ImmutableSet.of(
+          "fileoverview", "externs", "nocompile", "license", "preserve",
+          "const", "nosideeffects");
+
   private final Set<String> reservedKeywords;
   private final Set<Comment> parsedComments = new HashSet<>();
+  private final boolean parseJsDocLazily;
 
   // @license text gets appended onto the fileLevelJsDocBuilder as found,
   // and stored in JSDocInfo for placeholder node.
@@ -256,9 +264,13 @@ class IRFactory {
   // memory footprint associated with these.
   private final Node templateNode;
 
-  private final UnmodifiableIterator<Comment> nextCommentIter;
+  // The comments of the file, which may still be growing while the file is
+  // parsed, and the index of the next one to look at for JSDoc.
+  private final List<Comment> comments;
+  private int nextCommentIndex = 0;
 
-  private Comment currentComment;
+  // The SCRIPT node of a streamed program.
+  private Node script;
 
   private boolean currentFileIsExterns = false;
   private boolean hasTypeSyntax = false;
@@ -268,30 +280,25 @@ class IRFactory {
                     StaticSourceFile sourceFile,
                     Config config,
                     ErrorReporter errorReporter,
-                    ImmutableList<Comment> comments) {
+                    List<Comment> comments) {
     this.sourceString = sourceString;
-    this.nextCommentIter = comments.iterator();
-    this.currentComment = nextCommentIter.hasNext() ? nextCommentIter.next() : null;
-    this.newlines = new ArrayList<>();
+    this.comments = comments;
     this.sourceFile = sourceFile;
     this.fileLevelJsDocBuilder = new JSDocInfoBuilder(
         config.parseJsDocDocumentation);
 
-    // Pre-generate all the newlines in the file.
-    for (int charNo = 0; true; charNo++) {
-      charNo = sourceString.indexOf('\n', charNo);
-      if (charNo == -1) {
-        break;
-      }
-      newlines.add(charNo);
-    }
-
     // Sometimes this will be null in tests.
     this.sourceName = sourceFile == null ? null : sourceFile.getName();
 
     this.config = config;
     this.errorReporter = errorReporter;
     this.transformDispatcher = new TransformDispatcher();
+    // JSDoc is needed eagerly in IDE mode, for its documentation, and to
+    // check that it is not mixed with inline type syntax.
+    this.parseJsDocLazily = config.parseJsDocLazily
+        && !config.isIdeMode
+        && !config.parseJsDocDocumentation
+        && config.languageMode != LanguageMode.ECMASCRIPT6_TYPED;
     // The template node properties are applied to all nodes in this transform.
     this.templateNode = createTemplateNode();
 
@@ -323,32 +330,54 @@ class IRFactory {
     return templateNode;
   }
 
-  public static Node transformTree(ProgramTree tree,
-                                   StaticSourceFile sourceFile,
-                                   String sourceString,
-                                   Config config,
-                                   ErrorReporter errorReporter) {
+  /**
+   * Creates a factory that transforms a program into a SCRIPT node one
+   * top-level statement at a time, while the parser is still parsing it, so
+   * that the parse tree of each statement can be dropped as soon as it has
+   * been transformed.
+   */
+  static IRFactory forStreamingProgram(Parser parser,
+                                       StaticSourceFile sourceFile,
+                                       String sourceString,
+                                       Config config,
+                                       ErrorReporter errorReporter) {
     IRFactory irFactory = new IRFactory(sourceString, sourceFile,
-        config, errorReporter, tree.sourceComments);
+        config, errorReporter, parser.getCommentsSoFar());
+    irFactory.script = irFactory.newNode(Token.SCRIPT);
+    return irFactory;
+  }
+
+  /** Transforms the next top-level statement of a streamed program. */
+  void transformSourceElement(ParseTree element) {
+    script.addChildToBack(transform(element));
+  }
 
-    // don't call transform as we don't want standard jsdoc handling.
-    Node n = irFactory.justTransform(tree);
-    irFactory.setSourceInfo(n, tree);
+  /**
+   * Finishes the SCRIPT node of a streamed program, once the parser has
+   * returned the program tree.
+   */
+  Node finishProgram(ProgramTree tree) {
+    transformDispatcher.parseDirectives(script);
+    return finishTransform(script, tree);
+  }
+
+  private Node finishTransform(Node n, ProgramTree tree) {
+    setSourceInfo(n, tree);
 
     if (tree.sourceComments != null) {
       for (Comment comment : tree.sourceComments) {
         if (comment.type == Comment.Type.JSDOC &&
-            !irFactory.parsedComments.contains(comment)) {
-          irFactory.handlePossibleFileOverviewJsDoc(comment);
+            !parsedComments.contains(comment)) {
+          handlePossibleFileOverviewJsDoc(comment);
         } else if (comment.type == Comment.Type.BLOCK) {
-          irFactory.handleBlockComment(comment);
+          handleBlockComment(comment);
         }
       }
     }
 
-    irFactory.setFileOverviewJsDoc(n);
+    setFileOverviewJsDoc(n);
 
-    irFactory.validateAll(n);
+    validateAll(n);
 
     return n;
   }
@@ -592,16 +621,15 @@ class IRFactory {
 
   private Comment getJsDoc(SourceRange location) {
     Comment closestPreviousComment = null;
-    while (currentComment != null &&
-        currentComment.location.end.offset <= location.start.offset) {
+    while (nextCommentIndex < comments.size()) {
+      Comment currentComment = comments.get(nextCommentIndex);
+      if (currentComment.location.end.offset > location.start.offset) {
+        break;
+      }
       if (currentComment.type == Comment.Type.JSDOC) {
         closestPreviousComment = currentComment;
       }
-      if (this.nextCommentIter.hasNext()) {
-        currentComment = this.nextCommentIter.next();
-      } else {
-        currentComment = null;
-      }
+      nextCommentIndex++;
     }
 
     return closestPreviousComment;
@@ -635,6 +663,76 @@ class IRFactory {
     return handleJsDoc(getJsDoc(node));
   }
 
+  /**
+   * Returns a lazily parsed version of the comment, or null if the comment
+   * has to be parsed now with {@link #handleJsDoc(Comment)}.
+   */
+  private LazyJSDocInfo deferJsDoc(Comment comment) {
+    if (!parseJsDocLazily || comment == null
+        || hasEagerAnnotation(comment.value)) {
+      return null;
+    }
+    parsedComments.add(comment);
+    return new LazyJsDoc(comment.value, lineno(comment.location.start),
+        charno(comment.location.start), comment.location.start.offset,
+        sourceFile, config, errorReporter);
+  }
+
+  /**
+   * A quick scan for the annotations that have to be parsed eagerly. It may
+   * find annotations inside descriptions, which only costs an eager parse.
+   */
+  private static boolean hasEagerAnnotation(String comment) {
+    for (int at = comment.indexOf('@'); at != -1;
+         at = comment.indexOf('@', at + 1)) {
+      int end = at + 1;
+      while (end < comment.length()
+          && Character.isJavaIdentifierPart(comment.charAt(end))) {
+        end++;
+      }
+      if (EAGER_JSDOC_ANNOTATIONS.contains(comment.substring(at + 1, end))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A JSDoc comment that is parsed on first access. Any warnings are reported
+   * at that point.
+   */
+  private static final class LazyJsDoc extends LazyJSDocInfo {
+    private static final long serialVersionUID = 1L;
+
+    private final transient String comment;
+    private final transient int lineno;
+    private final transient int charno;
+    private final transient int position;
+    private final transient StaticSourceFile sourceFile;
+    private final transient Config config;
+    private final transient ErrorReporter errorReporter;
+
+    LazyJsDoc(String comment, int lineno, int charno, int position,
+        StaticSourceFile sourceFile, Config config,
+        ErrorReporter errorReporter) {
+      this.comment = comment;
+      this.lineno = lineno;
+      this.charno = charno;
+      this.position = position;
+      this.sourceFile = sourceFile;
+      this.config = config;
+      this.errorReporter = errorReporter;
+    }
+
+    @Override
+    protected JSDocInfo parse() {
+      JsDocInfoParser jsdocParser = newJsDocInfoParser(comment, lineno,
+          charno, position, sourceFile, config, errorReporter);
+      jsdocParser.parse();
+      return jsdocParser.retrieveAndResetParsedJSDocInfo();
+    }
+  }
+
   private boolean shouldAttachJSDocHere(ParseTree tree) {
     switch (tree.type) {
       case EXPRESSION_STATEMENT:
@@ -694,11 +792,24 @@ class IRFactory {
 
 
   private Node transform(ParseTree tree) {
-    JSDocInfo info = handleJsDoc(tree);
+    if (config.isBulkMode) {
+      // The only comments are licenses, which are handled as file
+      // overviews, so there is no JSDoc to look for.
+      Node node = justTransform(tree);
+      setSourceInfo(node, tree);
+      return node;
+    }
+    Comment comment = shouldAttachJSDocHere(tree) ? getJsDoc(tree) : null;
+    // A cast has to be known now, so JSDoc on parentheses is never deferred.
+    LazyJSDocInfo lazyInfo = tree.type == ParseTreeType.PAREN_EXPRESSION
+        ? null : deferJsDoc(comment);
+    JSDocInfo info = lazyInfo == null ? handleJsDoc(comment) : null;
     Node node = justTransform(tree);
     if (info != null) {
       node = maybeInjectCastNode(tree, info, node);
       node.setJSDocInfo(info);
+    } else if (lazyInfo != null) {
+      node.setLazyJSDocInfo(lazyInfo);
     }
     setSourceInfo(node, tree);
     return node;
@@ -831,23 +942,9 @@ class IRFactory {
    *     normal JsDoc, or no JsDoc (if the method parses to the wrong level).
    */
   private JsDocInfoParser createJsDocInfoParser(Comment node) {
-    String comment = node.value;
-    int lineno = lineno(node.location.start);
-    int charno = charno(node.location.start);
-    int position = node.location.start.offset;
-
-    // The JsDocInfoParser expects the comment without the initial '/**'.
-    int numOpeningChars = 3;
-    JsDocInfoParser jsdocParser =
-      new JsDocInfoParser(
-          new JsDocTokenStream(comment.substring(numOpeningChars),
-                               lineno,
-                               charno + numOpeningChars),
-          comment,
-          position,
-          sourceFile,
-          config,
-          errorReporter);
+    JsDocInfoParser jsdocParser = newJsDocInfoParser(node.value,
+        lineno(node.location.start), charno(node.location.start),
+        node.location.start.offset, sourceFile, config, errorReporter);
     jsdocParser.setFileLevelJsDocBuilder(fileLevelJsDocBuilder);
     jsdocParser.setFileOverviewJSDocInfo(fileOverviewInfo);
     jsdocParser.parse();
@@ -855,25 +952,32 @@ class IRFactory {
   }
 
   /**
-   * Parses inline type info.
+   * Creates a JsDocInfoParser for a comment that starts at the given
+   * position. The parser is shared by eagerly and lazily parsed comments.
    */
-  private JSDocInfo parseInlineTypeDoc(Comment node) {
-    String comment = node.value;
-    int lineno = lineno(node.location.start);
-    int charno = charno(node.location.start);
-
+  private static JsDocInfoParser newJsDocInfoParser(String comment,
+      int lineno, int charno, int position, StaticSourceFile sourceFile,
+      Config config, ErrorReporter errorReporter) {
     // The JsDocInfoParser expects the comment without the initial '/**'.
     int numOpeningChars = 3;
-    JsDocInfoParser parser =
-      new JsDocInfoParser(
-          new JsDocTokenStream(comment.substring(numOpeningChars),
-              lineno,
-              charno + numOpeningChars),
-          comment,
-          node.location.start.offset,
-          sourceFile,
-          config,
-          errorReporter);
+    return new JsDocInfoParser(
+        new JsDocTokenStream(comment.substring(numOpeningChars),
+                             lineno,
+                             charno + numOpeningChars),
+        comment,
+        position,
+        sourceFile,
+        config,
+        errorReporter);
+  }
+
+  /**
+   * Parses inline type info.
+   */
+  private JSDocInfo parseInlineTypeDoc(Comment node) {
+    JsDocInfoParser parser = newJsDocInfoParser(node.value,
+        lineno(node.location.start), charno(node.location.start),
+        node.location.start.offset, sourceFile, config, errorReporter);
     return parser.parseInlineTypeDoc();
   }
 
@@ -1319,7 +1423,9 @@ class IRFactory {
       if (asString) {
         node = newStringNode(Token.STRING, identifierToken.value);
       } else {
-        JSDocInfo info = handleJsDoc(identifierToken);
+        Comment comment = getJsDoc(identifierToken);
+        LazyJSDocInfo lazyInfo = deferJsDoc(comment);
+        JSDocInfo info = lazyInfo == null ? handleJsDoc(comment) : null;
         if (isReservedKeyword(identifierToken.toString())) {
           errorReporter.error(
             "identifier is a reserved word",
@@ -1330,6 +1436,8 @@ class IRFactory {
         node = newStringNode(Token.NAME, identifierToken.value);
         if (info != null) {
           node.setJSDocInfo(info);
+        } else if (lazyInfo != null) {
+          node.setLazyJSDocInfo(lazyInfo);
         }
       }
       setSourceInfo(node, identifierToken);
@@ -24,12 +24,14 @@ import com.google.javascript.jscomp.parsing.parser.Parser;
 import com.google.javascript.jscomp.parsing.parser.Parser.Config.Mode;
 import com.google.javascript.jscomp.parsing.parser.SourceFile;
 import com.google.javascript.jscomp.parsing.parser.trees.Comment;
+import com.google.javascript.jscomp.parsing.parser.trees.ParseTree;
 import com.google.javascript.jscomp.parsing.parser.trees.ProgramTree;
 import com.google.javascript.jscomp.parsing.parser.util.SourcePosition;
 import com.google.javascript.rhino.ErrorReporter;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.StaticSourceFile;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ResourceBundle;
@@ -61,6 +63,16 @@ public final class ParserRunner {
                                     boolean preserveJsDocWhitespace,
                                     LanguageMode languageMode,
                                     Set<String> extraAnnotationNames) {
+    return createConfig(isIdeMode, parseJsDocDocumentation,
+        preserveJsDocWhitespace, false, languageMode, extraAnnotationNames);
+  }
+
+  public static Config createConfig(boolean isIdeMode,
+                                    boolean parseJsDocDocumentation,
+                                    boolean preserveJsDocWhitespace,
+                                    boolean parseJsDocLazily,
+                                    LanguageMode languageMode,
+                                    Set<String> extraAnnotationNames) {
     initResourceConfig();
     Set<String> effectiveAnnotationNames;
     if (extraAnnotationNames == null) {
@@ -70,7 +82,32 @@ public final class ParserRunner {
       effectiveAnnotationNames.addAll(extraAnnotationNames);
     }
     return new Config(effectiveAnnotationNames, suppressionNames,
-        isIdeMode, parseJsDocDocumentation, preserveJsDocWhitespace, languageMode);
+        isIdeMode, parseJsDocDocumentation, preserveJsDocWhitespace,
+        parseJsDocLazily, languageMode);
+  }
+
+  /**
+   * Creates a configuration for parsing minified or generated code, such as
+   * third-party libraries, protocol buffer bindings and message tables.
+   * Comments are skipped by the scanner, so no JSDoc is attached to the AST
+   * and no JSDoc warnings are reported. The exception is JSDoc with an
+   * {@code @license} or {@code @preserve}, which is kept as the file's
+   * license, as such headers are common in third-party code.
+   */
+  public static Config createBulkConfig(LanguageMode languageMode) {
+    initResourceConfig();
+    return new Config(annotationNames, suppressionNames,
+        false, false, false, false, true, languageMode);
+  }
+
+  /**
+   * Creates a bulk configuration for the language and JSDoc annotations of
+   * the given configuration.
+   */
+  public static Config createBulkConfig(Config config) {
+    initResourceConfig();
+    return new Config(config.annotationNames.keySet(), suppressionNames,
+        false, false, false, false, true, config.languageMode);
   }
 
   public static Set<String> getReservedVars() {
@@ -100,18 +137,32 @@ public final class ParserRunner {
       ErrorReporter errorReporter) {
     // TODO(johnlenz): unify "SourceFile", "Es6ErrorReporter" and "Config"
     SourceFile file = new SourceFile(sourceFile.getName(), sourceString);
-    Es6ErrorReporter es6ErrorReporter =
+    final Es6ErrorReporter es6ErrorReporter =
         new Es6ErrorReporter(errorReporter, config.isIdeMode);
     com.google.javascript.jscomp.parsing.parser.Parser.Config es6config =
         new com.google.javascript.jscomp.parsing.parser.Parser.Config(mode(
-            config.languageMode));
+            config.languageMode), !config.isBulkMode);
     Parser p = new Parser(es6config, es6ErrorReporter, file);
-    ProgramTree tree = p.parseProgram();
+    // Each statement is transformed as soon as it is parsed. The AST is only
+    // kept, and its warnings only reported, if the whole file parsed cleanly.
+    DeferredErrorReporter irErrorReporter =
+        new DeferredErrorReporter(errorReporter);
+    final IRFactory irFactory = IRFactory.forStreamingProgram(
+        p, sourceFile, sourceString, config, irErrorReporter);
+    final boolean transformAfterErrors = config.isIdeMode;
+    ProgramTree tree = p.parseProgram(new Parser.SourceElementHandler() {
+      @Override
+      public void handleSourceElement(ParseTree element) {
+        if (transformAfterErrors || !es6ErrorReporter.hadError()) {
+          irFactory.transformSourceElement(element);
+        }
+      }
+    });
     Node root = null;
     List<Comment> comments = ImmutableList.of();
     if (tree != null && (!es6ErrorReporter.hadError() || config.isIdeMode)) {
-      root = IRFactory.transformTree(
-          tree, sourceFile, sourceString, config, errorReporter);
+      root = irFactory.finishProgram(tree);
+      irErrorReporter.replay();
       root.setIsSyntheticBlock(true);
 
       if (config.isIdeMode) {
@@ -121,6 +172,72 @@ public final class ParserRunner {
     return new ParseResult(root, comments);
   }
 
+  /**
+   * Holds on to warnings and errors until they are replayed to another
+   * reporter. Anything reported after that, such as warnings for JSDoc that
+   * is parsed lazily, goes straight to the other reporter.
+   */
+  private static class DeferredErrorReporter implements ErrorReporter {
+    private final ErrorReporter reporter;
+    private final List<Report> reports = new ArrayList<>();
+    private boolean replayed = false;
+
+    DeferredErrorReporter(ErrorReporter reporter) {
+      this.reporter = reporter;
+    }
+
+    @Override
+    public void warning(
+        String message, String sourceName, int line, int lineOffset) {
+      if (replayed) {
+        reporter.warning(message, sourceName, line, lineOffset);
+      } else {
+        reports.add(new Report(false, message, sourceName, line, lineOffset));
+      }
+    }
+
+    @Override
+    public void error(
+        String message, String sourceName, int line, int lineOffset) {
+      if (replayed) {
+        reporter.error(message, sourceName, line, lineOffset);
+      } else {
+        reports.add(new Report(true, message, sourceName, line, lineOffset));
+      }
+    }
+
+    void replay() {
+      for (Report report : reports) {
+        if (report.isError) {
+          reporter.error(report.message, report.sourceName, report.line,
+              report.lineOffset);
+        } else {
+          reporter.warning(report.message, report.sourceName, report.line,
+              report.lineOffset);
+        }
+      }
+      reports.clear();
+      replayed = true;
+    }
+
+    private static class Report {
+      final boolean isError;
+      final String message;
+      final String sourceName;
+      final int line;
+      final int lineOffset;
+
+      Report(boolean isError, String message, String sourceName, int line,
+          int lineOffset) {
+        this.isError = isError;
+        this.message = message;
+        this.sourceName = sourceName;
+        this.line = line;
+        this.lineOffset = lineOffset;
+      }
+    }
+  }
+
   private static class Es6ErrorReporter
       extends com.google.javascript.jscomp.parsing.parser.util.ErrorReporter {
     private ErrorReporter reporter;
@@ -25,34 +25,45 @@ import java.util.Arrays;
 /**
  * Maps offsets into a source string into line/column positions.
  *
- * Immutable.
+ * The line starts are fixed once the table is built. The only mutable state
+ * is the line of the last lookup, so a table should be used by one thread at
+ * a time, as the scanner of its file does.
  */
 public class LineNumberTable {
 
   private final SourceFile sourceFile;
   private final int[] lineStartOffsets;
 
+  // The line of the last lookup. The scanner asks for offsets at or shortly
+  // after the previous one, so this usually avoids a binary search.
+  private int lastLine = 0;
+
   public LineNumberTable(SourceFile sourceFile) {
     this.sourceFile = sourceFile;
     this.lineStartOffsets = computeLineStartOffsets(sourceFile.contents);
   }
 
   private static int[] computeLineStartOffsets(String source) {
-    // TODO(johnlenz): do this more efficiently.
-    ArrayList<Integer> lineStartOffsets = new ArrayList<>();
-    lineStartOffsets.add(0);
-    for (int index = 0; index < source.length(); index++) {
+    int[] lineStartOffsets = new int[16];
+    int lineCount = 0;
+    lineStartOffsets[lineCount++] = 0;
+    int length = source.length();
+    for (int index = 0; index < length; index++) {
       char ch = source.charAt(index);
       if (isLineTerminator(ch)) {
-        if (index + 1 < source.length() && ch == '\r'
+        if (index + 1 < length && ch == '\r'
             && source.charAt(index + 1) == '\n') {
           index++;
         }
-        lineStartOffsets.add(index + 1);
+        if (lineCount + 1 >= lineStartOffsets.length) {
+          lineStartOffsets = Arrays.copyOf(
+              lineStartOffsets, lineStartOffsets.length * 2);
+        }
+        lineStartOffsets[lineCount++] = index + 1;
       }
     }
-    lineStartOffsets.add(Integer.MAX_VALUE);
-    return toIntArray(lineStartOffsets);
+    lineStartOffsets[lineCount++] = Integer.MAX_VALUE;
+    return Arrays.copyOf(lineStartOffsets, lineCount);
   }
 
   public static int[] toIntArray(ArrayList<Integer> integers) {
@@ -81,6 +92,25 @@ public class LineNumberTable {
   }
 
   public int getLine(int offset) {
+    int line = lastLine;
+    if (!isOnLine(line, offset)) {
+      // Try the next line before searching the whole table.
+      line++;
+      if (!isOnLine(line, offset)) {
+        line = findLine(offset);
+      }
+      lastLine = line;
+    }
+    return line;
+  }
+
+  private boolean isOnLine(int line, int offset) {
+    return line >= 0 && line + 1 < lineStartOffsets.length
+        && lineStartOffsets[line] <= offset
+        && offset < lineStartOffsets[line + 1];
+  }
+
+  private int findLine(int offset) {
     int index = Arrays.binarySearch(lineStartOffsets, offset);
     // start of line
     if (index >= 0) {
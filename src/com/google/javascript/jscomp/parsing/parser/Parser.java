@@ -120,6 +120,8 @@ import com.google.javascript.jscomp.parsing.parser.util.SourceRange;
 import com.google.javascript.jscomp.parsing.parser.util.Timer;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -176,7 +178,8 @@ public class Parser {
       SourceFile source, int offset, boolean initialGeneratorContext) {
     this.config = config;
     this.errorReporter = errorReporter;
-    this.scanner = new Scanner(errorReporter, commentRecorder, source, offset);
+    this.scanner = new Scanner(errorReporter, commentRecorder, source, offset,
+        !config.recordComments);
     this.inGeneratorContext.add(initialGeneratorContext);
   }
 
@@ -207,8 +210,19 @@ public class Parser {
     public final boolean warnTrailingCommas;
     public final boolean warnLineContinuations;
     public final boolean warnES6NumberLiteral;
+    public final boolean recordComments;
 
     public Config(Mode mode) {
+      this(mode, true);
+    }
+
+    /**
+     * @param recordComments Whether to keep the comments of the source, for
+     *     JSDoc and {@link Parser#getComments}. Without them, comments are
+     *     skipped like whitespace, except for {@code @license} and
+     *     {@code @preserve} JSDoc, which is kept for the output.
+     */
+    public Config(Mode mode, boolean recordComments) {
       is6Typed = mode == Mode.ES6_TYPED;
       atLeast6 = mode == Mode.ES6 || mode == Mode.ES6_STRICT
           || mode == Mode.ES6_TYPED;
@@ -221,12 +235,12 @@ public class Parser {
       this.warnTrailingCommas = !atLeast5;
       this.warnLineContinuations = !atLeast6;
       this.warnES6NumberLiteral = !atLeast6;
+      this.recordComments = recordComments;
     }
   }
 
   private static class CommentRecorder implements Scanner.CommentRecorder{
-    private ImmutableList.Builder<Comment> comments =
-        ImmutableList.builder();
+    private final List<Comment> comments = new ArrayList<>();
     @Override
     public void recordComment(
         Comment.Type type, SourceRange range, String value) {
@@ -234,7 +248,7 @@ public class Parser {
     }
 
     private ImmutableList<Comment> getComments() {
-      return comments.build();
+      return ImmutableList.copyOf(comments);
     }
   }
 
@@ -242,32 +256,65 @@ public class Parser {
     return commentRecorder.getComments();
   }
 
+  /**
+   * Returns a read-only view of the comments scanned so far, which grows as
+   * the parser goes on. Every comment that precedes a source element has
+   * been recorded by the time the element is handed to a
+   * {@link SourceElementHandler}.
+   */
+  public List<Comment> getCommentsSoFar() {
+    return Collections.unmodifiableList(commentRecorder.comments);
+  }
+
+  /**
+   * Receives the top-level elements of a program as they are parsed.
+   */
+  public interface SourceElementHandler {
+    void handleSourceElement(ParseTree element);
+  }
+
   // 14 Program
   public ProgramTree parseProgram() {
+    final ImmutableList.Builder<ParseTree> sourceElements =
+        ImmutableList.builder();
+    ProgramTree program = parseProgram(new SourceElementHandler() {
+      @Override
+      public void handleSourceElement(ParseTree element) {
+        sourceElements.add(element);
+      }
+    });
+    return program == null
+        ? null
+        : new ProgramTree(
+            program.location, sourceElements.build(), program.sourceComments);
+  }
+
+  /**
+   * Parses a program, handing each top-level element to the given handler
+   * as soon as it is parsed, so that the caller need not keep the whole
+   * parse tree alive.
+   *
+   * @return The program, without its source elements, or null if it was
+   *     too deeply nested to parse.
+   */
+  public ProgramTree parseProgram(SourceElementHandler handler) {
     Timer t = new Timer("Parse Program");
     try {
       SourcePosition start = getTreeStartLocation();
-      ImmutableList<ParseTree> sourceElements = parseGlobalSourceElements();
+      while (!peek(TokenType.END_OF_FILE)) {
+        handler.handleSourceElement(parseScriptElement());
+      }
       eat(TokenType.END_OF_FILE);
       t.end();
       return new ProgramTree(
-          getTreeLocation(start), sourceElements, commentRecorder.getComments());
+          getTreeLocation(start), ImmutableList.<ParseTree>of(),
+          commentRecorder.getComments());
     } catch (StackOverflowError e) {
       reportError("Too deep recursion while parsing");
       return null;
     }
   }
 
-  private ImmutableList<ParseTree> parseGlobalSourceElements() {
-    ImmutableList.Builder<ParseTree> result = ImmutableList.builder();
-
-    while (!peek(TokenType.END_OF_FILE)) {
-      result.add(parseScriptElement());
-    }
-
-    return result.build();
-  }
-
   private ImmutableList<ParseTree> parseNamespaceElements() {
     ImmutableList.Builder<ParseTree> result = ImmutableList.builder();
 
@@ -21,7 +21,7 @@ import com.google.javascript.jscomp.parsing.parser.util.ErrorReporter;
 import com.google.javascript.jscomp.parsing.parser.util.SourcePosition;
 import com.google.javascript.jscomp.parsing.parser.util.SourceRange;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /**
  * Scans javascript source code into tokens. All entrypoints assume the
@@ -33,9 +33,15 @@ import java.util.LinkedList;
 public class Scanner {
   private final ErrorReporter errorReporter;
   private final SourceFile source;
-  private final LinkedList<Token> currentTokens = new LinkedList<>();
+  // Lookahead tokens, in a ring buffer whose capacity is a power of two.
+  private Token[] lookahead = new Token[4];
+  private int lookaheadStart = 0;
+  private int lookaheadSize = 0;
+  private final IdentifierTable identifiers = new IdentifierTable();
   private int index;
   private final CommentRecorder commentRecorder;
+  // Whether only @license and @preserve JSDoc comments are recorded.
+  private final boolean recordLicensesOnly;
   private int typeParameterLevel;
 
   public Scanner(ErrorReporter errorReporter, CommentRecorder commentRecorder,
@@ -45,13 +51,27 @@ public class Scanner {
 
   public Scanner(ErrorReporter errorReporter, CommentRecorder commentRecorder,
       SourceFile file, int offset) {
+    this(errorReporter, commentRecorder, file, offset, false);
+  }
+
+  /**
+   * @param recordLicensesOnly Whether to record only the JSDoc comments that
+   *     hold an {@code @license} or {@code @preserve}, and skip all other
+   *     comments like whitespace.
+   */
+  public Scanner(ErrorReporter errorReporter, CommentRecorder commentRecorder,
+      SourceFile file, int offset, boolean recordLicensesOnly) {
     this.errorReporter = errorReporter;
     this.commentRecorder = commentRecorder;
+    this.recordLicensesOnly = recordLicensesOnly;
     this.source = file;
     this.index = offset;
     this.typeParameterLevel = 0;
   }
 
+  /**
+   * Receives the comments the scanner skips over.
+   */
   public interface CommentRecorder {
     void recordComment(Comment.Type type, SourceRange range, String value);
   }
@@ -65,13 +85,13 @@ public class Scanner {
   }
 
   public int getOffset() {
-    return currentTokens.isEmpty()
+    return lookaheadSize == 0
         ? index
         : peekToken().location.start.offset;
   }
 
   public void setOffset(int index) {
-    currentTokens.clear();
+    clearLookahead();
     this.index = index;
   }
 
@@ -88,13 +108,24 @@ public class Scanner {
   }
 
   public Token nextToken() {
-    peekToken();
-    return currentTokens.remove();
+    Token token = peekToken();
+    lookahead[lookaheadStart] = null;
+    lookaheadStart = (lookaheadStart + 1) & (lookahead.length - 1);
+    lookaheadSize--;
+    return token;
   }
 
   private void clearTokenLookahead() {
     index = getOffset();
-    currentTokens.clear();
+    clearLookahead();
+  }
+
+  private void clearLookahead() {
+    if (lookaheadSize > 0) {
+      Arrays.fill(lookahead, null);
+      lookaheadSize = 0;
+    }
+    lookaheadStart = 0;
   }
 
   public LiteralToken nextRegularExpressionLiteralToken() {
@@ -231,10 +262,24 @@ public class Scanner {
   }
 
   public Token peekToken(int index) {
-    while (currentTokens.size() <= index) {
-      currentTokens.add(scanToken());
+    while (lookaheadSize <= index) {
+      if (lookaheadSize == lookahead.length) {
+        growLookahead();
+      }
+      lookahead[(lookaheadStart + lookaheadSize) & (lookahead.length - 1)] =
+          scanToken();
+      lookaheadSize++;
     }
-    return currentTokens.get(index);
+    return lookahead[(lookaheadStart + index) & (lookahead.length - 1)];
+  }
+
+  private void growLookahead() {
+    Token[] grown = new Token[lookahead.length * 2];
+    for (int i = 0; i < lookaheadSize; i++) {
+      grown[i] = lookahead[(lookaheadStart + i) & (lookahead.length - 1)];
+    }
+    lookahead = grown;
+    lookaheadStart = 0;
   }
 
   private boolean isAtEnd() {
@@ -361,6 +406,9 @@ public class Scanner {
     while (!isAtEnd() && !isLineTerminator(peekChar())) {
       nextChar();
     }
+    if (recordLicensesOnly) {
+      return;
+    }
     SourceRange range = getLineNumberTable().getSourceRange(startOffset, index);
     String value = this.source.contents.substring(startOffset, index);
     recordComment(type, range, value);
@@ -385,6 +433,10 @@ public class Scanner {
           && this.source.contents.charAt(startOffset + 2) == '*')
           ? Comment.Type.JSDOC
           : Comment.Type.BLOCK;
+      if (recordLicensesOnly
+          && (type != Comment.Type.JSDOC || !isLicense(startOffset, index))) {
+        return;
+      }
       SourceRange range = getLineNumberTable().getSourceRange(
           startOffset, index);
       String value = this.source.contents.substring(
@@ -395,6 +447,23 @@ public class Scanner {
     }
   }
 
+  /**
+   * Whether the comment between the given offsets has an {@code @license}
+   * or {@code @preserve} annotation, without copying it out of the source.
+   */
+  private boolean isLicense(int startOffset, int endOffset) {
+    String contents = this.source.contents;
+    for (int at = contents.indexOf('@', startOffset);
+         at != -1 && at < endOffset;
+         at = contents.indexOf('@', at + 1)) {
+      if (contents.startsWith("license", at + 1)
+          || contents.startsWith("preserve", at + 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Token scanToken() {
       skipComments();
       int beginToken = index;
@@ -647,10 +716,35 @@ public class Scanner {
   }
 
   private Token scanIdentifierOrKeyword(int beginToken, char ch) {
+    if (ch != '\\') {
+      // Without escapes, the identifier is a slice of the source, which we
+      // can look up without copying it.
+      while (isIdentifierPart(peekChar())) {
+        index++;
+      }
+      if (peekChar() != '\\') {
+        if (!isIdentifierStart(ch)) {
+          reportError(
+              getPosition(beginToken),
+              "Character '%c' (U+%04X) is not a valid identifier start char",
+              ch, (int) ch);
+          return createToken(TokenType.ERROR, beginToken);
+        }
+        int slot = identifiers.lookup(source.contents, beginToken, index);
+        TokenType keyword = identifiers.getKeywordType(slot);
+        if (keyword != null) {
+          return new Token(keyword, getTokenRange(beginToken));
+        }
+        return new IdentifierToken(
+            getTokenRange(beginToken), identifiers.getName(slot));
+      }
+    }
+
     StringBuilder valueBuilder = new StringBuilder();
-    valueBuilder.append(ch);
+    valueBuilder.append(source.contents, beginToken, index);
 
-    boolean containsUnicodeEscape = ch == '\\';
+    // Either the first character or the next one starts an escape.
+    boolean containsUnicodeEscape = true;
 
     ch = peekChar();
     while (isIdentifierPart(ch)
@@ -702,15 +796,17 @@ public class Scanner {
    * If there is an invalid escape sequence, returns null.
    */
   private String processUnicodeEscapes(String value) {
-    while (value.contains("\\")) {
-      int escapeStart = value.indexOf('\\');
+    StringBuilder result = new StringBuilder(value.length());
+    int escapeEnd = 0;
+    for (int escapeStart = value.indexOf('\\'); escapeStart != -1;
+         escapeStart = value.indexOf('\\', escapeEnd)) {
+      result.append(value, escapeEnd, escapeStart);
       try {
         if (value.charAt(escapeStart + 1) != 'u') {
           return null;
         }
 
         String hexDigits;
-        int escapeEnd;
         if (value.charAt(escapeStart + 2) != '{') {
           // Simple escape with exactly four hex digits: \\uXXXX
           escapeEnd = escapeStart + 6;
@@ -732,13 +828,12 @@ public class Scanner {
         if (!isIdentifierPart(ch)) {
           return null;
         }
-        value = value.substring(0, escapeStart) + ch +
-            value.substring(escapeEnd);
+        result.append(ch);
       } catch (NumberFormatException|StringIndexOutOfBoundsException e) {
         return null;
       }
     }
-    return value;
+    return result.append(value, escapeEnd, value.length()).toString();
   }
 
   private boolean isIdentifierStart(char ch) {
@@ -1044,4 +1139,79 @@ public class Scanner {
   void decTypeParameterLevel() {
     typeParameterLevel--;
   }
+
+  /**
+   * The identifiers and keywords seen by a scanner, in an open-addressed
+   * table keyed by their text. Looking up a slice of the source does not
+   * copy it, so each distinct identifier is only copied (and interned)
+   * once per file, and keywords are recognized by the same lookup.
+   */
+  private static final class IdentifierTable {
+    private String[] names = new String[256];
+    private TokenType[] keywordTypes = new TokenType[256];
+    private int size = 0;
+
+    /** Returns the slot of the text between begin and end. */
+    int lookup(String source, int begin, int end) {
+      int length = end - begin;
+      int hash = 0;
+      for (int i = begin; i < end; i++) {
+        hash = 31 * hash + source.charAt(i);
+      }
+      int mask = names.length - 1;
+      int slot = mix(hash) & mask;
+      String name;
+      while ((name = names[slot]) != null) {
+        if (name.length() == length
+            && source.regionMatches(begin, name, 0, length)) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      name = source.substring(begin, end).intern();
+      Keywords keyword = Keywords.get(name);
+      names[slot] = name;
+      keywordTypes[slot] = keyword == null ? null : keyword.type;
+      size++;
+      if (2 * size > names.length) {
+        grow();
+        return lookup(source, begin, end);
+      }
+      return slot;
+    }
+
+    String getName(int slot) {
+      return names[slot];
+    }
+
+    TokenType getKeywordType(int slot) {
+      return keywordTypes[slot];
+    }
+
+    private static int mix(int hash) {
+      return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+      String[] oldNames = names;
+      TokenType[] oldKeywordTypes = keywordTypes;
+      names = new String[oldNames.length * 2];
+      keywordTypes = new TokenType[oldNames.length * 2];
+      int mask = names.length - 1;
+      for (int i = 0; i < oldNames.length; i++) {
+        String name = oldNames[i];
+        if (name != null) {
+          // String caches its hash code, which is the same polynomial hash
+          // that lookup computes.
+          int slot = mix(name.hashCode()) & mask;
+          while (names[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          names[slot] = name;
+          keywordTypes[slot] = oldKeywordTypes[i];
+        }
+      }
+    }
+  }
 }
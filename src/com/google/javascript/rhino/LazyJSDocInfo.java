@@ -0,0 +1,75 @@
+/*
+ *
+ * ***** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is Rhino code, released
+ * May 6, 1999.
+ *
+ * The Initial Developer of the Original Code is
+ * Netscape Communications Corporation.
+ * Portions created by the Initial Developer are Copyright (C) 1997-1999
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * the GNU General Public License Version 2 or later (the "GPL"), in which
+ * case the provisions of the GPL are applicable instead of those above. If
+ * you wish to allow use of your version of this file only under the terms of
+ * the GPL and not to allow others to use your version of this file under the
+ * MPL, indicate your decision by deleting the provisions above and replacing
+ * them with the notice and other provisions required by the GPL. If you do
+ * not delete the provisions above, a recipient may use your version of this
+ * file under either the MPL or the GPL.
+ *
+ * ***** END LICENSE BLOCK ***** */
+
+package com.google.javascript.rhino;
+
+import java.io.Serializable;
+
+/**
+ * A JSDoc comment whose {@link JSDocInfo} is only built the first time it is
+ * requested with {@link Node#getJSDocInfo}. The parser attaches these to
+ * nodes when it is asked not to parse comments that nobody may ever read.
+ */
+public abstract class LazyJSDocInfo implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private transient boolean parsed = false;
+  private transient JSDocInfo info;
+
+  /**
+   * Returns the parsed comment, parsing it on the first call. May be
+   * {@code null} if the comment does not parse to anything.
+   */
+  public final synchronized JSDocInfo get() {
+    if (!parsed) {
+      info = parse();
+      parsed = true;
+    }
+    return info;
+  }
+
+  /** Parses the comment. Called at most once. */
+  protected abstract JSDocInfo parse();
+
+  /** Serializes the parsed comment rather than the means to parse it. */
+  protected final Object writeReplace() {
+    return get();
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(get());
+  }
+}
@@ -1222,6 +1222,45 @@ public class Node implements Serializable {
 
   private Node parent;
 
+  /**
+   * Writes the children of the node in a loop instead of through their
+   * sibling links, so that serialization nests as deep as the tree and not
+   * as long as its longest list of siblings. The parent and sibling links
+   * of each child are restored by the parent when it is read.
+   */
+  private void writeObject(java.io.ObjectOutputStream out)
+      throws IOException {
+    out.writeInt(type);
+    out.writeInt(sourcePosition);
+    out.writeObject(typei);
+    out.writeObject(propListHead);
+    out.writeInt(getChildCount());
+    for (Node child = first; child != null; child = child.next) {
+      out.writeObject(child);
+    }
+  }
+
+  private void readObject(java.io.ObjectInputStream in)
+      throws IOException, ClassNotFoundException {
+    type = in.readInt();
+    sourcePosition = in.readInt();
+    typei = (TypeI) in.readObject();
+    propListHead = (PropListItem) in.readObject();
+    int childCount = in.readInt();
+    Node previous = null;
+    for (int i = 0; i < childCount; i++) {
+      Node child = (Node) in.readObject();
+      child.parent = this;
+      if (previous == null) {
+        first = child;
+      } else {
+        previous.next = child;
+      }
+      previous = child;
+    }
+    last = previous;
+  }
+
   //==========================================================================
   // Source position management
 
@@ -2114,7 +2153,11 @@ public class Node implements Serializable {
    * node
    */
   public JSDocInfo getJSDocInfo() {
-    return (JSDocInfo) getProp(JSDOC_INFO_PROP);
+    Object info = getProp(JSDOC_INFO_PROP);
+    if (info instanceof LazyJSDocInfo) {
+      return ((LazyJSDocInfo) info).get();
+    }
+    return (JSDocInfo) info;
   }
 
   /**
@@ -2125,6 +2168,15 @@ public class Node implements Serializable {
     return this;
   }
 
+  /**
+   * Attaches a JSDoc comment that will be parsed the first time
+   * {@link #getJSDocInfo} is called.
+   */
+  public Node setLazyJSDocInfo(LazyJSDocInfo info) {
+    putProp(JSDOC_INFO_PROP, info);
+    return this;
+  }
+
   /** This node was last changed at {@code time} */
   public void setChangeTime(int time) {
     putIntProp(CHANGE_TIME, time);
@@ -470,6 +470,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
 
     this.prototypeSlot = new Property("prototype", prototype, true,
         propertyNode == null ? source : propertyNode);
+    registry.invalidateSubtypeCache();
     prototype.setOwnerFunction(this);
 
     if (oldPrototype != null) {
@@ -591,6 +592,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
         typeOfThis.extendTemplateTypeMap(type.getTemplateTypeMap());
       }
       this.implementedInterfaces = ImmutableList.copyOf(implementedInterfaces);
+      registry.invalidateSubtypeCache();
     } else {
       throw new UnsupportedOperationException();
     }
@@ -624,6 +626,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
     throws UnsupportedOperationException {
     if (isInterface()) {
       this.extendedInterfaces = ImmutableList.copyOf(extendedInterfaces);
+      registry.invalidateSubtypeCache();
       for (ObjectType extendedInterface : this.extendedInterfaces) {
         typeOfThis.extendTemplateTypeMap(
             extendedInterface.getTemplateTypeMap());
@@ -1181,6 +1184,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
    */
   void setInstanceType(ObjectType instanceType) {
     typeOfThis = instanceType;
+    registry.invalidateSubtypeCache();
   }
 
   /**
@@ -1314,6 +1318,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
     if (resolvedExtended != null) {
       extendedInterfaces = resolvedExtended;
     }
+    registry.invalidateSubtypeCache();
 
     if (subTypes != null) {
       for (int i = 0; i < subTypes.size(); i++) {
@@ -1432,6 +1437,7 @@ public class FunctionType extends PrototypeObjectType implements FunctionTypeI {
   public void setImplicitMatch(boolean flag) {
     Preconditions.checkState(isInterface());
     isStructuralInterface = flag;
+    registry.invalidateSubtypeCache();
   }
 
   @Override
@@ -450,6 +450,7 @@ public abstract class JSType implements TypeI, Serializable {
    */
   public void extendTemplateTypeMap(TemplateTypeMap otherMap) {
     templateTypeMap = templateTypeMap.extend(otherMap);
+    registry.invalidateSubtypeCache();
   }
 
   /**
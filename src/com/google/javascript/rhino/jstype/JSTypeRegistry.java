@@ -63,8 +63,10 @@ import com.google.javascript.rhino.jstype.RecordTypeBuilder.RecordProperty;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -146,11 +148,23 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
   private final Map<String, UnionTypeBuilder> typesIndexedByProperty =
        new HashMap<>();
 
-  // A map of properties to each reference type on which those
-  // properties have been declared. Each type has a unique name used
-  // for de-duping.
-  private final Map<String, Map<String, ObjectType>>
-      eachRefTypeIndexedByProperty = new LinkedHashMap<>();
+  // Dense ids for the types that properties have been registered on, and
+  // for each property, the ids of the types that it has been registered on.
+  // This lets us skip the union bookkeeping below when a property is
+  // registered on the same type again, which is by far the common case.
+  private final Map<JSType, Integer> propertyOwnerIds =
+      new IdentityHashMap<>();
+  private final Map<String, BitSet> propertyOwnersByProperty =
+      new HashMap<>();
+  private int nextPropertyOwnerId = 0;
+
+  // Dense ids for reference types, by reference name, and for each property,
+  // the ids of the reference types on which it has been declared. The most
+  // recently registered type with a given name is the one returned.
+  private final Map<String, Integer> referenceTypeIds = new HashMap<>();
+  private final List<ObjectType> referenceTypesById = new ArrayList<>();
+  private final Map<String, BitSet> eachRefTypeIndexedByProperty =
+      new HashMap<>();
 
   // A map of properties to the greatest subtype on which those properties have
   // been declared. This is filled lazily from the types declared in
@@ -170,6 +184,17 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
   private final Multimap<StaticTypedScope<JSType>, NamedType> resolvedNamedTypes =
       ArrayListMultimap.create();
 
+  // Memoized results of isSubtype between nominal instance types, keyed by
+  // the identities of the subtype and then the supertype. These only depend
+  // on prototype chains, interfaces and template type maps, so the cache is
+  // cleared whenever one of those changes.
+  // @see PrototypeObjectType#isSubtype
+  private final Map<JSType, Map<JSType, Boolean>> subtypeCache =
+      new IdentityHashMap<>();
+
+  // Incremented whenever the subtype cache is invalidated.
+  private int subtypeCacheGeneration = 0;
+
   // NamedType warns about unresolved types in the last generation.
   private boolean lastGeneration = true;
 
@@ -242,13 +267,72 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
    * Reset to run the TypeCheck pass.
    */
   public void resetForTypeCheck() {
+    invalidateSubtypeCache();
     typesIndexedByProperty.clear();
+    propertyOwnerIds.clear();
+    propertyOwnersByProperty.clear();
+    nextPropertyOwnerId = 0;
+    referenceTypeIds.clear();
+    referenceTypesById.clear();
     eachRefTypeIndexedByProperty.clear();
     initializeBuiltInTypes();
     namesToTypes.clear();
     initializeRegistry();
   }
 
+  /**
+   * Reset to run another compilation. The native types are rebuilt in place,
+   * because the previous compilation declared properties on them.
+   */
+  public void resetForNewCompile() {
+    nonNullableTypeNames.clear();
+    forwardDeclaredTypes.clear();
+    greatestSubtypeByProperty.clear();
+    interfaceToImplementors.clear();
+    unresolvedNamedTypes.clear();
+    resolvedNamedTypes.clear();
+    lastGeneration = true;
+    templateTypes.clear();
+    resetForTypeCheck();
+  }
+
+  /**
+   * Returns the memoized result of {@code subtype.isSubtype(supertype)}, or
+   * null if it is not known.
+   */
+  Boolean getCachedSubtype(JSType subtype, JSType supertype) {
+    Map<JSType, Boolean> supertypes = subtypeCache.get(subtype);
+    return supertypes == null ? null : supertypes.get(supertype);
+  }
+
+  void cacheSubtype(JSType subtype, JSType supertype, boolean result) {
+    Map<JSType, Boolean> supertypes = subtypeCache.get(subtype);
+    if (supertypes == null) {
+      supertypes = new IdentityHashMap<>();
+      subtypeCache.put(subtype, supertypes);
+    }
+    supertypes.put(supertype, result);
+  }
+
+  /**
+   * Forgets the memoized subtype relations. Called whenever a change to a
+   * type could change which types are its subtypes.
+   */
+  void invalidateSubtypeCache() {
+    subtypeCacheGeneration++;
+    if (!subtypeCache.isEmpty()) {
+      subtypeCache.clear();
+    }
+  }
+
+  /**
+   * Returns a number that changes whenever a change to a type could have
+   * changed which types are its subtypes.
+   */
+  int getSubtypeCacheGeneration() {
+    return subtypeCacheGeneration;
+  }
+
   private void initializeBuiltInTypes() {
     // These locals shouldn't be all caps.
     BooleanType BOOLEAN_TYPE = new BooleanType(this);
@@ -635,6 +719,22 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
    * show up in the type registry").
    */
   public void registerPropertyOnType(String propertyName, JSType type) {
+    // Proxies and unions are indexed by the types they point to, which can
+    // change as names are resolved, so they are always indexed again.
+    if (!(type instanceof ProxyObjectType) && !type.isUnionType()) {
+      BitSet owners = propertyOwnersByProperty.get(propertyName);
+      if (owners == null) {
+        owners = new BitSet();
+        propertyOwnersByProperty.put(propertyName, owners);
+      }
+      int ownerId = getPropertyOwnerId(type);
+      if (owners.get(ownerId)) {
+        // Adding the same type to the union again would not change it.
+        return;
+      }
+      owners.set(ownerId);
+    }
+
     UnionTypeBuilder typeSet = typesIndexedByProperty.get(propertyName);
     if (typeSet == null) {
       typeSet = new UnionTypeBuilder(this, PROPERTY_CHECKING_UNION_SIZE);
@@ -648,17 +748,37 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
     greatestSubtypeByProperty.remove(propertyName);
   }
 
+  private int getPropertyOwnerId(JSType type) {
+    Integer id = propertyOwnerIds.get(type);
+    if (id == null) {
+      id = nextPropertyOwnerId++;
+      propertyOwnerIds.put(type, id);
+    }
+    return id;
+  }
+
+  private int getReferenceTypeId(String referenceName) {
+    Integer id = referenceTypeIds.get(referenceName);
+    if (id == null) {
+      id = referenceTypesById.size();
+      referenceTypeIds.put(referenceName, id);
+      referenceTypesById.add(null);
+    }
+    return id;
+  }
+
   private void addReferenceTypeIndexedByProperty(
       String propertyName, JSType type) {
     if (type instanceof ObjectType && ((ObjectType) type).hasReferenceName()) {
-      Map<String, ObjectType> typeSet =
-          eachRefTypeIndexedByProperty.get(propertyName);
+      BitSet typeSet = eachRefTypeIndexedByProperty.get(propertyName);
       if (typeSet == null) {
-        typeSet = new LinkedHashMap<>();
+        typeSet = new BitSet();
         eachRefTypeIndexedByProperty.put(propertyName, typeSet);
       }
       ObjectType objType = (ObjectType) type;
-      typeSet.put(objType.getReferenceName(), objType);
+      int id = getReferenceTypeId(objType.getReferenceName());
+      referenceTypesById.set(id, objType);
+      typeSet.set(id);
     } else if (type instanceof NamedType) {
       addReferenceTypeIndexedByProperty(
           propertyName, ((NamedType) type).getReferencedType());
@@ -679,11 +799,14 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
    */
   public void unregisterPropertyOnType(String propertyName, JSType type) {
     // TODO(bashir): typesIndexedByProperty should also be updated!
-    Map<String, ObjectType> typeSet =
-        eachRefTypeIndexedByProperty.get(propertyName);
-    if (typeSet != null) {
-      typeSet.remove(type.toObjectType().getReferenceName());
+    BitSet typeSet = eachRefTypeIndexedByProperty.get(propertyName);
+    Integer id = referenceTypeIds.get(type.toObjectType().getReferenceName());
+    if (typeSet != null && id != null) {
+      typeSet.clear(id);
     }
+    // Forget which types the property was registered on, so that registering
+    // it on one of them again re-indexes the reference type.
+    propertyOwnersByProperty.remove(propertyName);
   }
 
   /**
@@ -718,6 +841,17 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
           && type.hasProperty(propertyName)) {
         return true;
       }
+      // If the property was registered on this very type, then the types
+      // indexed by the property include it or one of its supertypes.
+      Integer ownerId = propertyOwnerIds.get(type);
+      BitSet owners = propertyOwnersByProperty.get(propertyName);
+      if (ownerId != null && owners != null && owners.get(ownerId)
+          && !type.isEmptyType()) {
+        RecordType maybeRecordType = type.toMaybeRecordType();
+        if (maybeRecordType == null || !maybeRecordType.isSynthetic()) {
+          return true;
+        }
+      }
       if (typesIndexedByProperty.containsKey(propertyName)) {
         for (JSType alt :
                  typesIndexedByProperty.get(propertyName).getAlternates()) {
@@ -750,11 +884,16 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
    */
   public Iterable<ObjectType> getEachReferenceTypeWithProperty(
       String propertyName) {
-    if (eachRefTypeIndexedByProperty.containsKey(propertyName)) {
-      return eachRefTypeIndexedByProperty.get(propertyName).values();
-    } else {
+    BitSet typeSet = eachRefTypeIndexedByProperty.get(propertyName);
+    if (typeSet == null) {
       return ImmutableList.of();
     }
+    ImmutableList.Builder<ObjectType> types = ImmutableList.builder();
+    for (int id = typeSet.nextSetBit(0); id >= 0;
+         id = typeSet.nextSetBit(id + 1)) {
+      types.add(referenceTypesById.get(id));
+    }
+    return types.build();
   }
 
   /**
@@ -838,6 +977,81 @@ public class JSTypeRegistry implements TypeIRegistry, Serializable {
     register(t, name);
   }
 
+  /**
+   * Removes a declared global type name, so that it can be declared again
+   * when the script that declared it is replaced.
+   */
+  public void undeclareType(String name) {
+    JSType type = namesToTypes.remove(name);
+    nonNullableTypeNames.remove(name);
+    if (type == null) {
+      return;
+    }
+
+    // Forget the properties registered on the type, and for a constructor
+    // or interface, on its function and prototype too, so that the indices
+    // no longer return them as owners.
+    Set<JSType> retracted = Collections.newSetFromMap(
+        new IdentityHashMap<JSType, Boolean>());
+    retracted.add(type);
+    ObjectType objType = type.toObjectType();
+    if (objType != null) {
+      FunctionType constructor = objType.getConstructor();
+      if (constructor != null && constructor.getInstanceType() == objType) {
+        retracted.add(constructor);
+        if (objType.getImplicitPrototype() != null) {
+          retracted.add(objType.getImplicitPrototype());
+        }
+      }
+    }
+    retractPropertyOwners(retracted);
+    invalidateSubtypeCache();
+  }
+
+  private void retractPropertyOwners(Set<JSType> retracted) {
+    for (JSType type : retracted) {
+      Integer ownerId = propertyOwnerIds.remove(type);
+      if (ownerId != null) {
+        for (BitSet owners : propertyOwnersByProperty.values()) {
+          owners.clear(ownerId);
+        }
+      }
+      ObjectType objType = type.toObjectType();
+      if (objType != null && objType.hasReferenceName()) {
+        Integer id = referenceTypeIds.get(objType.getReferenceName());
+        if (id != null && referenceTypesById.get(id) == objType) {
+          referenceTypesById.set(id, null);
+          for (BitSet typeSet : eachRefTypeIndexedByProperty.values()) {
+            typeSet.clear(id);
+          }
+        }
+      }
+    }
+
+    for (Map.Entry<String, UnionTypeBuilder> entry :
+             typesIndexedByProperty.entrySet()) {
+      Collection<JSType> alternates = entry.getValue().getAlternates();
+      boolean hasRetracted = false;
+      for (JSType alternate : alternates) {
+        if (retracted.contains(alternate)) {
+          hasRetracted = true;
+          break;
+        }
+      }
+      if (hasRetracted) {
+        UnionTypeBuilder typeSet =
+            new UnionTypeBuilder(this, PROPERTY_CHECKING_UNION_SIZE);
+        for (JSType alternate : alternates) {
+          if (!retracted.contains(alternate)) {
+            typeSet.addAlternate(alternate);
+          }
+        }
+        entry.setValue(typeSet);
+        greatestSubtypeByProperty.remove(entry.getKey());
+      }
+    }
+  }
+
   /**
    * Records a forward-declared type name. We will not emit errors if this
    * type name never resolves to anything.
@@ -350,6 +350,7 @@ public class PrototypeObjectType extends ObjectType {
   final void setImplicitPrototype(ObjectType implicitPrototype) {
     checkState(!hasCachedValues());
     this.implicitPrototypeFallback = implicitPrototype;
+    registry.invalidateSubtypeCache();
   }
 
   @Override
@@ -380,6 +381,34 @@ public class PrototypeObjectType extends ObjectType {
   @Override
   protected boolean isSubtype(JSType that,
       ImplCache implicitImplCache) {
+    if (!implicitImplCache.isStructuralTyping()
+        || !isNominalInstancePair(this, that)) {
+      return isSubtypeUncached(that, implicitImplCache);
+    }
+    Boolean cached = registry.getCachedSubtype(this, that);
+    if (cached == null) {
+      cached = isSubtypeUncached(that, implicitImplCache);
+      registry.cacheSubtype(this, that, cached);
+    }
+    return cached;
+  }
+
+  /**
+   * Whether the subtype relation between two types only depends on their
+   * prototype chains, interfaces and template type maps, and not on their
+   * properties, so that it can be memoized in the registry.
+   */
+  private static boolean isNominalInstancePair(JSType thisType, JSType that) {
+    if (thisType.getClass() != InstanceObjectType.class
+        || that.getClass() != InstanceObjectType.class) {
+      return false;
+    }
+    FunctionType thatCtor = that.toObjectType().getConstructor();
+    return thatCtor != null && !thatCtor.isStructuralInterface();
+  }
+
+  private boolean isSubtypeUncached(JSType that,
+      ImplCache implicitImplCache) {
     if (JSType.isSubtypeHelper(this, that, implicitImplCache)) {
       return true;
     }
@@ -482,6 +511,7 @@ public class PrototypeObjectType extends ObjectType {
     if (implicitPrototype != null) {
       implicitPrototypeFallback =
           (ObjectType) implicitPrototype.resolve(t, scope);
+      registry.invalidateSubtypeCache();
       FunctionType ctor = getConstructor();
       if (ctor != null) {
         FunctionType superCtor = ctor.getSuperClassConstructor();
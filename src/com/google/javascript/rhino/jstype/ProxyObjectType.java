@@ -67,7 +67,7 @@ public class ProxyObjectType extends ObjectType {
   ProxyObjectType(JSTypeRegistry registry, JSType referencedType,
                   TemplateTypeMap templateTypeMap) {
     super(registry, templateTypeMap);
-    setReferencedType(Preconditions.checkNotNull(referencedType));
+    setReferencedTypeInternal(Preconditions.checkNotNull(referencedType));
   }
 
   @Override
@@ -85,6 +85,11 @@ public class ProxyObjectType extends ObjectType {
   }
 
   void setReferencedType(JSType referencedType) {
+    setReferencedTypeInternal(referencedType);
+    registry.invalidateSubtypeCache();
+  }
+
+  private void setReferencedTypeInternal(JSType referencedType) {
     this.referencedType = referencedType;
     if (referencedType instanceof ObjectType) {
       this.referencedObjType = (ObjectType) referencedType;
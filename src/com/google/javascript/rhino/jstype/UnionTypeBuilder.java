@@ -51,8 +51,13 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A builder for union types.
@@ -66,6 +71,11 @@ public class UnionTypeBuilder implements Serializable {
   // then we should just give up and admit that we have no clue.
   private static final int DEFAULT_MAX_UNION_SIZE = 30;
 
+  // Unions with at least this many alternates index their nominal instance
+  // types, so that adding an alternate only checks it for subtyping against
+  // the alternates it could be related to.
+  private static final int MIN_INDEXED_UNION_SIZE = 8;
+
   private final JSTypeRegistry registry;
   private final List<JSType> alternates = new ArrayList<>();
   private boolean isAllType = false;
@@ -96,6 +106,9 @@ public class UnionTypeBuilder implements Serializable {
   // Memoize the result, in case build() is called multiple times.
   private JSType result = null;
 
+  // Built lazily once the union is large enough; see getNominalIndex.
+  private transient NominalIndex nominalIndex = null;
+
   public UnionTypeBuilder(JSTypeRegistry registry) {
     this(registry, DEFAULT_MAX_UNION_SIZE);
   }
@@ -172,6 +185,11 @@ public class UnionTypeBuilder implements Serializable {
           return this;
         }
 
+        // Nominal instance types that the index proves unrelated to the
+        // alternate are skipped below.
+        NominalIndex index = getNominalIndex();
+        Set<JSType> related = index == null ? null : index.getRelated(alternate);
+
         // Look through the alternates we've got so far,
         // and check if any of them are duplicates of
         // one another.
@@ -181,6 +199,12 @@ public class UnionTypeBuilder implements Serializable {
           boolean removeCurrent = false;
           JSType current = it.next();
 
+          if (related != null && index.contains(current)
+              && !related.contains(current)) {
+            currentIndex++;
+            continue;
+          }
+
           // Unknown and NoResolved types may just be names that haven't
           // been resolved yet. So keep these in the union, and just use
           // equality checking for simple de-duping.
@@ -269,6 +293,9 @@ public class UnionTypeBuilder implements Serializable {
 
           if (removeCurrent) {
             it.remove();
+            if (index != null) {
+              index.remove(current);
+            }
 
             if (currentIndex == functionTypePosition) {
               functionTypePosition = -1;
@@ -287,6 +314,9 @@ public class UnionTypeBuilder implements Serializable {
         }
 
         alternates.add(alternate);
+        if (index != null) {
+          index.add(alternate);
+        }
         result = null; // invalidate the memoized result
       }
     } else {
@@ -295,6 +325,25 @@ public class UnionTypeBuilder implements Serializable {
     return this;
   }
 
+  /**
+   * Returns the index of the nominal alternates, or null if the union is too
+   * small to need one. The index is rebuilt if types have changed since it
+   * was built.
+   */
+  private NominalIndex getNominalIndex() {
+    if (alternates.size() < MIN_INDEXED_UNION_SIZE) {
+      return null;
+    }
+    int generation = registry.getSubtypeCacheGeneration();
+    if (nominalIndex == null || nominalIndex.generation != generation) {
+      nominalIndex = new NominalIndex(generation);
+      for (JSType alternate : alternates) {
+        nominalIndex.add(alternate);
+      }
+    }
+    return nominalIndex;
+  }
+
   /**
    * Adds an alternate to the union type under construction. Returns this
    * for easy chaining.
@@ -349,4 +398,161 @@ public class UnionTypeBuilder implements Serializable {
   private Collection<JSType> getAlternateListCopy() {
     return ImmutableList.copyOf(alternates);
   }
+
+  /**
+   * Indexes the alternates that are nominal instance types by the names of
+   * their supertypes.
+   *
+   * A nominal instance type can only be a subtype of another one if the name
+   * of the other is among the names of the objects on its prototype chain and
+   * of the interfaces they implement or extend. Types whose subtyping is not
+   * decided by those names alone, such as structural interfaces, unknowns and
+   * types with an unknown prototype, are not indexed, and are still compared
+   * with every alternate.
+   */
+  private static final class NominalIndex {
+    final int generation;
+
+    // The supertype names of each indexed type, including its own name.
+    private final Map<JSType, Set<String>> supertypeNames =
+        new IdentityHashMap<>();
+    private final Map<String, List<JSType>> byName = new HashMap<>();
+    private final Map<String, List<JSType>> bySupertypeName = new HashMap<>();
+
+    NominalIndex(int generation) {
+      this.generation = generation;
+    }
+
+    boolean contains(JSType type) {
+      return supertypeNames.containsKey(type);
+    }
+
+    /**
+     * Returns the indexed types that may be subtypes or supertypes of the
+     * given type, or null if it may be related to any of them.
+     */
+    Set<JSType> getRelated(JSType type) {
+      Set<String> names = getSupertypeNames(type);
+      if (names == null) {
+        return null;
+      }
+      Set<JSType> related = Collections.newSetFromMap(
+          new IdentityHashMap<JSType, Boolean>());
+      for (String name : names) {
+        addAll(related, byName.get(name));
+      }
+      addAll(related, bySupertypeName.get(getName(type)));
+      return related;
+    }
+
+    void add(JSType type) {
+      Set<String> names = getSupertypeNames(type);
+      if (names != null) {
+        supertypeNames.put(type, names);
+        put(byName, getName(type), type);
+        for (String name : names) {
+          put(bySupertypeName, name, type);
+        }
+      }
+    }
+
+    void remove(JSType type) {
+      Set<String> names = supertypeNames.remove(type);
+      if (names != null) {
+        removeFrom(byName, getName(type), type);
+        for (String name : names) {
+          removeFrom(bySupertypeName, name, type);
+        }
+      }
+    }
+
+    private static String getName(JSType type) {
+      return type.toObjectType().getReferenceName();
+    }
+
+    /**
+     * Returns the names of the objects on the prototype chain of a nominal
+     * instance type and of all the interfaces they implement or extend, or
+     * null if its subtypes and supertypes can't be told apart by name.
+     */
+    private static Set<String> getSupertypeNames(JSType type) {
+      if (type.getClass() != InstanceObjectType.class
+          || !type.isNominalType()) {
+        return null;
+      }
+      FunctionType ctor = type.toObjectType().getConstructor();
+      if (ctor == null || ctor.isStructuralInterface()) {
+        return null;
+      }
+
+      Set<String> names = new HashSet<>();
+      Set<ObjectType> visited = Collections.newSetFromMap(
+          new IdentityHashMap<ObjectType, Boolean>());
+      List<ObjectType> worklist = new ArrayList<>();
+      worklist.add(type.toObjectType());
+      while (!worklist.isEmpty()) {
+        ObjectType current = worklist.remove(worklist.size() - 1);
+        while (current instanceof ProxyObjectType) {
+          if (current.hasReferenceName()) {
+            names.add(current.getReferenceName());
+          }
+          JSType referenced =
+              ((ProxyObjectType) current).getReferencedTypeInternal();
+          current = referenced.toObjectType();
+          if (current == null) {
+            return null;
+          }
+        }
+        if (!visited.add(current)) {
+          continue;
+        }
+        if (!(current instanceof PrototypeObjectType)
+            || current.isRecordType()
+            || current.isUnknownType()) {
+          return null;
+        }
+        if (current.hasReferenceName()) {
+          names.add(current.getReferenceName());
+        }
+        ObjectType implicitPrototype = current.getImplicitPrototype();
+        if (implicitPrototype != null) {
+          worklist.add(implicitPrototype);
+        }
+        for (ObjectType iface : current.getCtorImplementedInterfaces()) {
+          worklist.add(iface);
+        }
+        for (ObjectType iface : current.getCtorExtendedInterfaces()) {
+          worklist.add(iface);
+        }
+      }
+      return names;
+    }
+
+    private static void addAll(Set<JSType> set, List<JSType> types) {
+      if (types != null) {
+        set.addAll(types);
+      }
+    }
+
+    private static void put(
+        Map<String, List<JSType>> map, String key, JSType type) {
+      List<JSType> types = map.get(key);
+      if (types == null) {
+        types = new ArrayList<>(1);
+        map.put(key, types);
+      }
+      types.add(type);
+    }
+
+    private static void removeFrom(
+        Map<String, List<JSType>> map, String key, JSType type) {
+      List<JSType> types = map.get(key);
+      for (int i = 0; i < types.size(); i++) {
+        if (types.get(i) == type) {
+          types.remove(i);
+          return;
+        }
+      }
+    }
+  }
 }
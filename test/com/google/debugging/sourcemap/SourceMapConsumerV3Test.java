@@ -115,4 +115,33 @@ public final class SourceMapConsumerV3Test extends TestCase {
     assertThat(((JsonElement) exts.get("x_org_int")).getAsInt()).isEqualTo(2);
     assertThat(((JsonArray) exts.get("x_org_array")).size()).isEqualTo(0);
   }
+
+  public void testCursor() throws Exception {
+    String sourceMap =  "{\n" +
+                        "\"version\":3,\n" +
+                        "\"file\":\"testcode\",\n" +
+                        "\"lineCount\":3,\n" +
+                        "\"mappings\":\"AAAAA,QAASA,UAAS,EAAG;;IAEnB,CAAC;\",\n" +
+                        "\"sources\":[\"testcode\"],\n" +
+                        "\"names\":[\"__BASIC__\"]\n" +
+                        "}\n";
+
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(sourceMap);
+
+    // Walk forward, then backward, and compare against plain lookups.
+    SourceMapConsumerV3.Cursor cursor = consumer.newCursor();
+    for (int line = 1; line <= 4; line++) {
+      for (int column = 1; column <= 30; column++) {
+        assertThat(cursor.getMappingForLine(line, column))
+            .isEqualTo(consumer.getMappingForLine(line, column));
+      }
+    }
+    for (int line = 4; line >= 1; line--) {
+      for (int column = 30; column >= 1; column--) {
+        assertThat(cursor.getMappingForLine(line, column))
+            .isEqualTo(consumer.getMappingForLine(line, column));
+      }
+    }
+  }
 }
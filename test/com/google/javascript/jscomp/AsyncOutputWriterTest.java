@@ -0,0 +1,136 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests for {@link AsyncOutputWriter}.
+ */
+public final class AsyncOutputWriterTest extends TestCase {
+
+  private final Map<String, ByteArrayOutputStream> outputs =
+      new ConcurrentHashMap<>();
+
+  private final AsyncOutputWriter.StreamOpener inMemory =
+      new AsyncOutputWriter.StreamOpener() {
+        @Override
+        public OutputStream open(String fileName) {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          outputs.put(fileName, out);
+          return out;
+        }
+      };
+
+  public void testWritesAllOutputs() throws Exception {
+    AsyncOutputWriter writer = new AsyncOutputWriter(inMemory, 2, 1);
+    for (int i = 0; i < 20; i++) {
+      try (Writer out = writer.newWriter("out" + i + ".js", UTF_8)) {
+        out.append("var x").append(String.valueOf(i)).append(";");
+      }
+    }
+    writer.close();
+
+    assertThat(outputs).hasSize(20);
+    for (int i = 0; i < 20; i++) {
+      assertThat(new String(outputs.get("out" + i + ".js").toByteArray(), UTF_8))
+          .isEqualTo("var x" + i + ";");
+    }
+  }
+
+  public void testEncodesWithCharset() throws Exception {
+    AsyncOutputWriter writer = new AsyncOutputWriter(inMemory, 1, 1);
+    writer.write("out.js", "aéb", US_ASCII);
+    writer.close();
+    assertThat(new String(outputs.get("out.js").toByteArray(), US_ASCII))
+        .isEqualTo("a?b");
+  }
+
+  public void testWritesBytes() throws Exception {
+    AsyncOutputWriter writer = new AsyncOutputWriter(inMemory, 1, 1);
+    writer.write("out.map", "a:b\n".getBytes(UTF_8));
+    writer.close();
+    assertThat(new String(outputs.get("out.map").toByteArray(), UTF_8))
+        .isEqualTo("a:b\n");
+  }
+
+  public void testReleasesPermitWhenRejected() throws Exception {
+    AsyncOutputWriter writer = new AsyncOutputWriter(inMemory, 1, 1);
+    writer.abort();
+    for (int i = 0; i < 2; i++) {
+      try {
+        // With one permit, a leaked permit would block the second write.
+        writer.write("out" + i + ".js", "", UTF_8);
+        fail("Expected IOException");
+      } catch (IOException e) {
+        assertThat(e.getMessage()).contains("closed");
+      }
+    }
+  }
+
+  public void testWritesThroughFileChannel() throws Exception {
+    File file = File.createTempFile("async", ".js");
+    file.deleteOnExit();
+    AsyncOutputWriter writer = new AsyncOutputWriter(
+        new AsyncOutputWriter.StreamOpener() {
+          @Override
+          public OutputStream open(String fileName) throws IOException {
+            return new FileOutputStream(fileName);
+          }
+        }, 1, 1);
+    writer.write(file.getPath(), "alert(1);\n", UTF_8);
+    writer.close();
+    assertThat(new String(Files.readAllBytes(file.toPath()), UTF_8))
+        .isEqualTo("alert(1);\n");
+  }
+
+  public void testFailsFast() throws Exception {
+    AsyncOutputWriter writer = new AsyncOutputWriter(
+        new AsyncOutputWriter.StreamOpener() {
+          @Override
+          public OutputStream open(String fileName) throws IOException {
+            throw new IOException("disk full");
+          }
+        }, 1, 1);
+    writer.write("out0.js", "", UTF_8);
+    try {
+      // Once the first write has failed, later ones are rejected.
+      for (int i = 1; i < 100; i++) {
+        writer.write("out" + i + ".js", "", UTF_8);
+        Thread.sleep(10);
+      }
+      writer.close();
+      fail("Expected IOException");
+    } catch (IOException e) {
+      assertThat(e.getMessage()).contains("disk full");
+    }
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.javascript.jscomp.BatchCommandLineRunner.TargetResult;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link BatchCommandLineRunner}.
+ */
+public final class BatchCommandLineRunnerTest extends TestCase {
+
+  private File tempDir;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    tempDir = Files.createTempDir();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    for (File file : tempDir.listFiles()) {
+      file.delete();
+    }
+    tempDir.delete();
+    super.tearDown();
+  }
+
+  public void testCompilesTargetsConcurrently() throws Exception {
+    List<String> flagFiles = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      File input = writeFile("in" + i + ".js", "var x" + i + " = 1 + 2;");
+      flagFiles.add(writeFile("flags" + i,
+          "--js " + input.getPath()
+          + " --js_output_file " + new File(tempDir, "out" + i + ".js")
+          + " --env CUSTOM").getPath());
+    }
+
+    List<TargetResult> results =
+        new BatchCommandLineRunner(3).compile(flagFiles);
+
+    assertThat(results).hasSize(6);
+    for (int i = 0; i < 6; i++) {
+      TargetResult result = results.get(i);
+      assertThat(result.getFlagFile()).isEqualTo(flagFiles.get(i));
+      assertThat(result.isSuccess()).isTrue();
+      assertThat(readFile("out" + i + ".js")).isEqualTo("var x" + i + "=3;\n");
+    }
+  }
+
+  public void testWarningGuardsArePerTarget() throws Exception {
+    File input = writeFile("in.js", "alert(undefinedThing);");
+    String strict = writeFile("strict",
+        "--js " + input.getPath() + " --jscomp_error undefinedVars"
+        + " --js_output_file " + new File(tempDir, "strict.js")).getPath();
+    String lenient = writeFile("lenient",
+        "--js " + input.getPath()
+        + " --js_output_file " + new File(tempDir, "lenient.js")).getPath();
+
+    List<TargetResult> results = new BatchCommandLineRunner(2).compile(
+        ImmutableList.of(strict, lenient, strict, lenient));
+
+    for (int i = 0; i < results.size(); i += 2) {
+      assertThat(results.get(i).isSuccess()).isFalse();
+      assertThat(results.get(i).getErrors()).contains("undefinedThing");
+      assertThat(results.get(i + 1).isSuccess()).isTrue();
+    }
+  }
+
+  public void testReportsUsageErrors() throws Exception {
+    String flagFile = writeFile("flags", "--no_such_flag").getPath();
+
+    TargetResult result =
+        new BatchCommandLineRunner(1).compile(ImmutableList.of(flagFile))
+            .get(0);
+
+    assertThat(result.isSuccess()).isFalse();
+    assertThat(result.getErrors()).contains("no_such_flag");
+  }
+
+  private File writeFile(String name, String contents) throws IOException {
+    File file = new File(tempDir, name);
+    Files.write(contents, file, UTF_8);
+    return file;
+  }
+
+  private String readFile(String name) throws IOException {
+    return Files.toString(new File(tempDir, name), UTF_8);
+  }
+}
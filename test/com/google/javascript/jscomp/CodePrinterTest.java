@@ -1398,6 +1398,9 @@ public final class CodePrinterTest extends CodePrinterTestBase {
     assertPrintNumber("-.01", -0.01);
     assertPrintNumber(".01", 0.01);
     assertPrintNumber("1.01", 1.01);
+    assertPrintNumber("-1E-7", -0.0000001);
+    assertPrintNumber("1.5E-7", 0.00000015);
+    assertPrintNumber("1.5E300", 1.5e300);
   }
 
   public void testBiggerThanMaxLongNumericLiterals() {
@@ -1709,6 +1712,31 @@ public final class CodePrinterTest extends CodePrinterTestBase {
     assertPrint("var x ='\\x7f';", "var x=\"\\u007f\"");
   }
 
+  public void testOutputCharset() {
+    String js = "var x = '\u00e9\u4e2d';";
+    assertEquals("var x=\"\\u00e9\\u4e2d\"", parsePrint(js,
+        newCompilerOptions(new CompilerOptionBuilder() {
+          @Override
+          void setOptions(CompilerOptions options) {
+            options.setOutputCharset("US-ASCII");
+          }
+        })));
+    assertEquals("var x=\"\u00e9\\u4e2d\"", parsePrint(js,
+        newCompilerOptions(new CompilerOptionBuilder() {
+          @Override
+          void setOptions(CompilerOptions options) {
+            options.setOutputCharset("ISO-8859-1");
+          }
+        })));
+    assertEquals("var x=\"\u00e9\u4e2d\"", parsePrint(js,
+        newCompilerOptions(new CompilerOptionBuilder() {
+          @Override
+          void setOptions(CompilerOptions options) {
+            options.setOutputCharset("UTF-8");
+          }
+        })));
+  }
+
   // Separate from testNumericKeys() so we can set allowWarnings.
   public void testOctalNumericKey() {
     allowWarnings = true;
@@ -26,15 +26,19 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.FlagUsageException;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.jscomp.SourceMap.LocationMapping;
+import com.google.javascript.rhino.InputId;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 
 import junit.framework.TestCase;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -1101,6 +1105,27 @@ public final class CommandLineRunnerTest extends TestCase {
     assertThat(builder.toString()).isEqualTo("var x=3; // m0.js\n");
   }
 
+  public void testParallelModuleOutput() {
+    useModules = ModulePattern.CHAIN;
+    args.add("--num_output_threads=2");
+    args.add("--create_source_map=%outname%.map");
+    testSame(new String[] {
+      "var x = 3;",
+      "var y = 4;"
+    });
+  }
+
+  public void testParallelModuleOutputWithIndexMap() {
+    useModules = ModulePattern.CHAIN;
+    args.add("--num_output_threads=2");
+    args.add("--create_source_map=all.map");
+    testSame(new String[] {
+      "var x = 3;",
+      "var y = 4;",
+      "var z = 5;"
+    });
+  }
+
   public void testCharSetExpansion() {
     testSame("");
     assertThat(lastCompiler.getOptions().outputCharset).isEqualTo("US-ASCII");
@@ -1466,6 +1491,138 @@ public final class CommandLineRunnerTest extends TestCase {
     test("", AbstractCommandLineRunner.OUTPUT_SAME_AS_INPUT_ERROR);
   }
 
+  public void testAstOutputDir() throws Exception {
+    File astDir = Files.createTempDir();
+    try {
+      args.add("--ast_output_dir=" + astDir.getPath());
+      compile(new String[] {"/** @const */ var a = 1;", "if (a) {"});
+      assertThat(exitCodes).containsExactly(1);
+
+      File astFile = lastCommandLineRunner.getSerializedAstFile(getFilename(0));
+      assertEquals(new File(astDir, getFilename(0) + ".ast"), astFile);
+      SourceFile source = SourceFile.fromCode(getFilename(0), "");
+      Node root;
+      try (FileInputStream in = new FileInputStream(astFile)) {
+        root = SerializedAst.readAst(in, source);
+      }
+      assertEquals(Token.VAR, root.getFirstChild().getType());
+      assertTrue(root.getFirstChild().getJSDocInfo().isConstant());
+      assertSame(source, root.getFirstChild().getStaticSourceFile());
+
+      // The input with a parse error is reported, and has no AST.
+      assertFalse(lastCommandLineRunner.getSerializedAstFile(getFilename(1))
+          .exists());
+      assertThat(lastCompiler.getErrors()).hasLength(1);
+
+      // Input paths are normalized.
+      assertEquals(new File(astDir, "lib/a.js.ast"),
+          lastCommandLineRunner.getSerializedAstFile("./lib/b/../a.js"));
+    } finally {
+      deleteRecursively(astDir);
+    }
+  }
+
+  public void testAstOutputDirRejectsInputsOutsideOfIt() throws Exception {
+    File astDir = Files.createTempDir();
+    try {
+      args.add("--ast_output_dir=" + astDir.getPath());
+      setFilename(0, "../lib/a.js");
+      compile(new String[] {"var a = 1;"});
+      assertThat(exitCodes).containsExactly(-1);
+      assertThat(new String(errReader.toByteArray(), UTF_8))
+          .contains("Cannot write the AST of input ../lib/a.js");
+      assertThat(astDir.list()).isEmpty();
+
+      try {
+        lastCommandLineRunner.getSerializedAstFile("/lib/a.js");
+        fail("Expected a FlagUsageException");
+      } catch (FlagUsageException e) {
+        // expected
+      }
+    } finally {
+      deleteRecursively(astDir);
+    }
+  }
+
+  public void testAstOutputDirReleasesWrittenAsts() throws Exception {
+    File astDir = Files.createTempDir();
+    try {
+      args.add("--ast_output_dir=" + astDir.getPath());
+      final int[] generatedCount = {0, 0};
+      List<SourceFile> inputs = ImmutableList.of(
+          SourceFile.fromGenerator("a.js", new SourceFile.Generator() {
+            @Override
+            public String getCode() {
+              generatedCount[0]++;
+              return "var a = 1;";
+            }
+          }),
+          SourceFile.fromGenerator("b.js", new SourceFile.Generator() {
+            @Override
+            public String getCode() {
+              generatedCount[1]++;
+              return "if (a) {";
+            }
+          }));
+      CommandLineRunner runner =
+          createCommandLineRunner(new String[] {"", ""});
+      runner.enableTestMode(
+          Suppliers.ofInstance(externs),
+          Suppliers.ofInstance(inputs),
+          null,
+          new Function<Integer, Boolean>() {
+            @Override
+            public Boolean apply(Integer code) {
+              return exitCodes.add(code);
+            }
+          });
+      runner.run();
+      assertThat(exitCodes).containsExactly(1);
+      assertTrue(runner.getSerializedAstFile("a.js").exists());
+
+      // Neither AST is kept once its input is done with, so asking for them
+      // again parses the inputs again.
+      Compiler compiler = runner.getCompiler();
+      assertFalse(inputs.get(0).hasSourceInMemory());
+      assertEquals(1, generatedCount[0]);
+      compiler.getInput(new InputId("a.js")).getAstRoot(compiler);
+      assertEquals(2, generatedCount[0]);
+      // The error report reads b.js again, after its AST was released.
+      inputs.get(1).clearCachedSource();
+      int bCount = generatedCount[1];
+      compiler.getInput(new InputId("b.js")).getAstRoot(compiler);
+      assertEquals(bCount + 1, generatedCount[1]);
+    } finally {
+      deleteRecursively(astDir);
+    }
+  }
+
+  public void testAstOutputDirRejectsCollidingInputs() throws Exception {
+    File astDir = Files.createTempDir();
+    try {
+      args.add("--ast_output_dir=" + astDir.getPath());
+      setFilename(0, "lib/a.js");
+      setFilename(1, "lib/../lib/a.js");
+      compile(new String[] {"var a = 1;", "var b = 2;"});
+      assertThat(exitCodes).containsExactly(-1);
+      assertThat(new String(errReader.toByteArray(), UTF_8))
+          .contains("would both be written to");
+      assertThat(astDir.list()).isEmpty();
+    } finally {
+      deleteRecursively(astDir);
+    }
+  }
+
+  public void testBulkParseJsKeepsLicense() {
+    args.add("--bulk_parse_js=" + getFilename(0));
+    Compiler compiler = compile(new String[] {
+        "/** @license Foo */ /** @type {number */ var a = 1;"});
+    assertThat(compiler.getErrors()).isEmpty();
+    assertThat(compiler.getWarnings()).isEmpty();
+    assertTrue(compiler.getOptions().isBulkParsedInput(getFilename(0)));
+    assertThat(compiler.toSource()).startsWith("/*\n Foo */\n");
+  }
+
   public void testOutputWrapperFlag() {
     // if the output wrapper flag is specified without a valid output marker,
     // ensure that the compiler displays an error and exits.
@@ -1691,6 +1848,16 @@ public final class CommandLineRunnerTest extends TestCase {
     return n;
   }
 
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
   private void setFilename(int i, String filename) {
     this.filenames.put(i, filename);
   }
@@ -18,11 +18,13 @@ package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.debugging.sourcemap.FilePosition;
+import com.google.debugging.sourcemap.SourceMapConsumerV3;
 import com.google.debugging.sourcemap.SourceMapGeneratorV3;
 import com.google.debugging.sourcemap.proto.Mapping.OriginalMapping;
 import com.google.javascript.rhino.InputId;
@@ -41,6 +43,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author johnlenz@google.com (John Lenz)
@@ -82,6 +85,29 @@ public final class CompilerTest extends TestCase {
     assertEquals(6, cb.getColumnIndex());
   }
 
+  // Code printed into the buffer after other text matches code printed alone
+  public void testCodeBuilderAppendPrinter() {
+    Compiler compiler = new Compiler();
+    Node root = compiler.parseTestCode(
+        "var alpha = 1; var beta = 2; var gamma = 3; var delta = 4;");
+    CompilerOptions options = new CompilerOptions();
+    options.lineLengthThreshold = 20;
+    options.preferLineBreakAtEndOfFile = true;
+    String expected = new CodePrinter.Builder(root)
+        .setCompilerOptions(options).build();
+
+    Compiler.CodeBuilder cb = new Compiler.CodeBuilder();
+    cb.append("foo();\ngoo();");
+    cb.append(new CodePrinter.Builder(root).setCompilerOptions(options));
+
+    assertEquals("foo();\ngoo();" + expected, cb.toString());
+    int newlines = CharMatcher.is('\n').countIn(expected);
+    assertTrue(newlines > 1);
+    assertEquals(1 + newlines, cb.getLineIndex());
+    assertEquals(expected.length() - expected.lastIndexOf('\n') - 1,
+        cb.getColumnIndex());
+  }
+
   public void testCyclicalDependencyInInputs() {
     List<SourceFile> inputs = ImmutableList.of(
         SourceFile.fromCode(
@@ -189,6 +215,43 @@ public final class CompilerTest extends TestCase {
         compiler.getSourceLine(origSourceName, 1));
   }
 
+  public void testApplyInputSourceMaps() throws Exception {
+    FilePosition originalSourcePosition = new FilePosition(17, 25);
+    ImmutableMap<String, SourceMapInput> inputSourceMaps = ImmutableMap.of(
+        normalize("generated_js/example.js"),
+        sourcemap(
+            normalize("generated_js/example.srcmap"),
+            normalize("../original/source.html"),
+            originalSourcePosition));
+
+    CompilerOptions options = new CompilerOptions();
+    options.inputSourceMaps = inputSourceMaps;
+    options.setApplyInputSourceMaps(true);
+    options.sourceMapOutputPath = "example.map";
+    Compiler compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, ImmutableList.of(
+        SourceFile.fromCode(normalize("generated_js/example.js"),
+            "\n  alert(1);")),
+        options);
+    compiler.toSource();
+
+    StringBuilder output = new StringBuilder();
+    compiler.getSourceMap().appendTo(output, "example.js");
+    SourceMapConsumerV3 consumer = new SourceMapConsumerV3();
+    consumer.parse(output.toString());
+
+    assertEquals(ImmutableList.of(normalize("original/source.html")),
+        ImmutableList.copyOf(consumer.getOriginalSources()));
+    assertEquals(
+        OriginalMapping.newBuilder()
+            .setOriginalFile(normalize("original/source.html"))
+            .setLineNumber(18)
+            .setColumnPosition(26)
+            .setIdentifier("alert")
+            .build(),
+        consumer.getMappingForLine(1, 1));
+  }
+
   private SourceMapInput sourcemap(String sourceMapPath, String originalSource,
       FilePosition originalSourcePosition) throws Exception {
     SourceMapGeneratorV3 sourceMap = new SourceMapGeneratorV3();
@@ -377,6 +440,147 @@ public final class CompilerTest extends TestCase {
     assertNotNull(compiler.getInput(new InputId("in3")));
   }
 
+  public void testModuleToSourceWithSeparateSourceMap() throws Exception {
+    List<JSModule> modules = ImmutableList.of(
+        new JSModule("m1"), new JSModule("m2"));
+    modules.get(0).add(SourceFile.fromCode("in1", "var a = 1;"));
+    modules.get(0).add(SourceFile.fromCode("in2", "var b = a;"));
+    modules.get(1).add(SourceFile.fromCode("in3", "alert(b);"));
+    modules.get(1).addDependency(modules.get(0));
+
+    CompilerOptions options = new CompilerOptions();
+    options.sourceMapOutputPath = "out.map";
+    Compiler compiler = new Compiler();
+    compiler.compileModules(EMPTY_EXTERNS, modules, options);
+
+    for (JSModule m : modules) {
+      compiler.getSourceMap().reset();
+      String expectedCode = compiler.toSource(m);
+      StringBuilder expectedMap = new StringBuilder();
+      compiler.getSourceMap().appendTo(expectedMap, m.getName());
+
+      SourceMap moduleMap = compiler.newSourceMap();
+      assertEquals(expectedCode, compiler.toSource(m, moduleMap));
+      StringBuilder moduleMapContents = new StringBuilder();
+      moduleMap.appendTo(moduleMapContents, m.getName());
+      assertEquals(expectedMap.toString(), moduleMapContents.toString());
+    }
+  }
+
+  public void testToSourceInParallel() throws Exception {
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("in1", "/** @license Foo */ var a = 1;"),
+        SourceFile.fromCode("in2", "var b = a;\nfunction f() { return b; }"),
+        SourceFile.fromCode("in3", ""),
+        SourceFile.fromCode("in4", "/** @license Foo */ alert(f());"));
+
+    CompilerOptions options = new CompilerOptions();
+    options.sourceMapOutputPath = "out.map";
+    options.setPrintInputDelimiter(true);
+    options.setLineLengthThreshold(10);
+    Compiler compiler = new Compiler();
+    compiler.compile(EMPTY_EXTERNS, inputs, options);
+
+    compiler.getSourceMap().reset();
+    String expectedCode = compiler.toSource();
+    StringBuilder expectedMap = new StringBuilder();
+    compiler.getSourceMap().appendTo(expectedMap, "out.js");
+
+    compiler.getSourceMap().reset();
+    ExecutorService workers = CompilerExecutor.newWorkerPool(2, "test");
+    try {
+      assertEquals(expectedCode, compiler.toSource(workers));
+    } finally {
+      workers.shutdownNow();
+    }
+    StringBuilder map = new StringBuilder();
+    compiler.getSourceMap().appendTo(map, "out.js");
+    assertEquals(expectedMap.toString(), map.toString());
+  }
+
+  public void testToSourceInParallelParsesDeferredJsDocFirst()
+      throws Exception {
+    CompilerOptions options = new CompilerOptions();
+    options.setParseJsDocLazily(true);
+    options.setPreserveTypeAnnotations(true);
+    options.setWarningLevel(DiagnosticGroups.CHECK_TYPES, CheckLevel.WARNING);
+    final List<Thread> reportingThreads = new ArrayList<>();
+    Compiler compiler = new Compiler();
+    compiler.setErrorManager(new BasicErrorManager() {
+      @Override
+      public void report(CheckLevel level, JSError error) {
+        reportingThreads.add(Thread.currentThread());
+        super.report(level, error);
+      }
+
+      @Override
+      public void println(CheckLevel level, JSError error) {}
+
+      @Override
+      protected void printSummary() {}
+    });
+    compiler.init(EMPTY_EXTERNS, ImmutableList.of(
+        SourceFile.fromCode("in1", "/** @type {number */ var a = 1;"),
+        SourceFile.fromCode("in2", "var b = 2;")), options);
+    compiler.parseInputs();
+    assertThat(reportingThreads).isEmpty();
+
+    ExecutorService workers = CompilerExecutor.newWorkerPool(2, "test");
+    try {
+      compiler.toSource(workers);
+    } finally {
+      workers.shutdownNow();
+    }
+    // The bad type is reported on this thread, not on a printer thread.
+    assertThat(reportingThreads).containsExactly(Thread.currentThread());
+  }
+
+  public void testResetAndCompileAgain() throws Exception {
+    List<SourceFile> externs = ImmutableList.of(SourceFile.fromCode("externs",
+        "/** @constructor */ function Foo() {}\n"
+        + "/** @return {number} */ Foo.prototype.bar = function() {};"));
+    List<SourceFile> inputs = ImmutableList.of(SourceFile.fromCode("in",
+        "var x = /** @type {string} */ (new Foo().bar()); alert(x);"));
+
+    Compiler compiler = new Compiler();
+    CompilerOptions options = createNewFlagBasedOptions();
+    options.setCheckTypes(true);
+    CompilationLevel.ADVANCED_OPTIMIZATIONS.setOptionsForCompilationLevel(
+        options);
+    Result first = compiler.compile(externs, inputs, options);
+    String firstSource = compiler.toSource();
+
+    // The second compile keeps copies of the parsed externs, and the third
+    // uses them.
+    for (int i = 0; i < 2; i++) {
+      compiler.reset();
+      Result result = compiler.compile(externs, inputs, options);
+      assertThat(compiler.toSource()).isEqualTo(firstSource);
+      assertThat(result.warnings).hasLength(first.warnings.length);
+      assertThat(result.warnings[0].getType())
+          .isEqualTo(first.warnings[0].getType());
+      assertThat(result.errors).isEmpty();
+    }
+  }
+
+  public void testResetWithChangedExterns() throws Exception {
+    List<SourceFile> inputs = ImmutableList.of(
+        SourceFile.fromCode("in", "foo();"));
+    CompilerOptions options = createNewFlagBasedOptions();
+    options.checkSymbols = true;
+
+    Compiler compiler = new Compiler();
+    compiler.reset();
+    compiler.compile(ImmutableList.of(
+        SourceFile.fromCode("externs", "function foo() {}")), inputs, options);
+    assertThat(compiler.getErrors()).isEmpty();
+
+    compiler.reset();
+    compiler.compile(ImmutableList.of(
+        SourceFile.fromCode("externs", "function bar() {}")), inputs, options);
+    assertThat(compiler.getErrors()).hasLength(1);
+  }
+
   public void testMalformedFunctionInExterns() throws Exception {
     // Just verify that no exceptions are thrown (see bug 910619).
     new Compiler().compile(
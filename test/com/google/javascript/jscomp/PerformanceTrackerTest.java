@@ -17,8 +17,10 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonObject;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
 import com.google.javascript.jscomp.PerformanceTracker.Stats;
+import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 
@@ -108,7 +110,8 @@ public final class PerformanceTrackerTest extends TestCase {
     tracker.outputTracerReport(outstream);
     outstream.close();
     Pattern p = Pattern.compile(
-        ".*Summary:\npass,runtime,runs,changingRuns,reduction,gzReduction" +
+        ".*Summary:\npass,runtime,runs,changingRuns,reduction,gzReduction," +
+        "astReduction,allocMem" +
         ".*TOTAL:" +
         "\nRuntime\\(ms\\): [0-9]+" +
         "\n#Runs: [0-9]+" +
@@ -119,11 +122,81 @@ public final class PerformanceTrackerTest extends TestCase {
         "\nEstimated GzReduction\\(bytes\\): [0-9]+" +
         "\nEstimated Size\\(bytes\\): -?[0-9]+" +
         "\nEstimated GzSize\\(bytes\\): -?[0-9]+" +
+        "\nAST Reduction\\(nodes\\): -?[0-9]+" +
+        "\nAST Size\\(nodes\\): [0-9]+" +
+        "\nAllocated Memory\\(bytes\\): [0-9]+" +
         "\n\nLog:\n" +
-        "pass,runtime,runs,changingRuns,reduction,gzReduction,size,gzSize.*",
+        "pass,runtime,runs,changingRuns,reduction,gzReduction,size,gzSize," +
+        "astReduction,astSize,allocMem.*",
         Pattern.DOTALL);
     String outputString = output.toString();
     assertTrue("Unexpected output from PerformanceTracker:\n" + outputString,
         p.matcher(outputString).matches());
   }
-}
\ No newline at end of file
+
+  public void testAstSize() {
+    Node script = IR.script(
+        IR.exprResult(IR.call(IR.name("f"))),
+        IR.exprResult(IR.name("x")));
+    PerformanceTracker tracker =
+        new PerformanceTracker(script, TracerMode.TIMING_ONLY);
+    CodeChangeHandler handler = tracker.getCodeChangeHandler();
+
+    tracker.recordPassStart(Compiler.PARSING_PASS_NAME, true);
+    tracker.recordPassStop(Compiler.PARSING_PASS_NAME, 0);
+
+    tracker.recordPassStart("removeX", true);
+    script.removeChild(script.getLastChild());
+    handler.reportChange();
+    tracker.recordPassStop("removeX", 0);
+
+    tracker.recordPassStart("noChange", false);
+    tracker.recordPassStop("noChange", 0);
+
+    assertEquals(4, tracker.getAstSize());
+    Stats st = tracker.getStats().get("removeX");
+    assertEquals(2, st.astDiff);
+    assertEquals(4, st.astSize);
+    assertEquals(0, tracker.getStats().get("noChange").astDiff);
+    assertTrue(tracker.getAllocMem() >= 0);
+
+    JsonObject json = tracker.toJson();
+    assertEquals(2, json.get("astReduction").getAsInt());
+    assertEquals(4, json.get("astSize").getAsInt());
+    assertEquals(3, json.getAsJsonArray("log").size());
+    JsonObject removeX = json.getAsJsonArray("log").get(1).getAsJsonObject();
+    assertEquals("removeX", removeX.get("pass").getAsString());
+    assertEquals(2, removeX.get("astReduction").getAsInt());
+    assertEquals(3, json.getAsJsonArray("summary").size());
+  }
+
+  public void testParsingRecordedTwice() {
+    Node script = IR.script(
+        IR.exprResult(IR.call(IR.name("f"))),
+        IR.exprResult(IR.name("x")));
+    PerformanceTracker tracker =
+        new PerformanceTracker(script, TracerMode.TIMING_ONLY);
+    CodeChangeHandler handler = tracker.getCodeChangeHandler();
+
+    tracker.recordPassStart(Compiler.PARSING_PASS_NAME, true);
+    tracker.recordPassStop(Compiler.PARSING_PASS_NAME, 0);
+
+    tracker.recordPassStart("removeX", true);
+    script.removeChild(script.getLastChild());
+    handler.reportChange();
+    tracker.recordPassStop("removeX", 0);
+
+    tracker.recordPassStart(Compiler.PARSING_PASS_NAME, true);
+    script.addChildToBack(IR.exprResult(IR.name("y")));
+    handler.reportChange();
+    tracker.recordPassStop(Compiler.PARSING_PASS_NAME, 0);
+
+    assertEquals(6, tracker.getAstSize());
+    assertEquals(2, tracker.getStats().get("removeX").astDiff);
+    assertEquals(2, tracker.getStats().get(Compiler.PARSING_PASS_NAME).runs);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    tracker.outputTracerReport(new PrintStream(output));
+    assertTrue(output.toString().contains("removeX"));
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.Node;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+/**
+ * Tests for {@link SerializedAst}.
+ */
+public final class SerializedAstTest extends TestCase {
+
+  public void testRoundTrip() throws Exception {
+    SourceFile file = SourceFile.fromCode("in.js",
+        "/** @const */ var a = [1, 'x'];\n"
+        + "function f(b) { return b + a; }");
+    Node root = parse(file);
+
+    SourceFile sameFile = SourceFile.fromCode("in.js", file.getCode());
+    Node copy = SerializedAst.readAst(
+        new ByteArrayInputStream(write(root)), sameFile);
+
+    assertNull(root.checkTreeEquals(copy));
+    assertTrue(copy.getFirstChild().getJSDocInfo().isConstant());
+    assertSame(sameFile, copy.getStaticSourceFile());
+    Node b = copy.getLastChild().getLastChild().getFirstChild()
+        .getFirstChild().getFirstChild();
+    assertEquals("b", b.getString());
+    assertSame(sameFile, b.getStaticSourceFile());
+    assertEquals(2, b.getLineno());
+  }
+
+  public void testManySiblings() throws Exception {
+    StringBuilder code = new StringBuilder("var a = [");
+    for (int i = 0; i < 50000; i++) {
+      code.append(i).append(',');
+    }
+    code.append("0];");
+    SourceFile file = SourceFile.fromCode("in.js", code.toString());
+    Node root = parse(file);
+
+    Node copy = SerializedAst.readAst(
+        new ByteArrayInputStream(write(root)), file);
+    assertNull(root.checkTreeEquals(copy));
+  }
+
+  public void testCompile() throws Exception {
+    SourceFile file = SourceFile.fromCode("in.js",
+        "function f(x) { return x + 1; } alert(f(2));");
+    File astFile = File.createTempFile("input", ".js.ast");
+    astFile.deleteOnExit();
+    try (OutputStream out = new FileOutputStream(astFile)) {
+      SerializedAst.writeAst(parse(file), out);
+    }
+
+    JSModule module = new JSModule("m");
+    module.add(new CompilerInput(
+        new SerializedAst(file, astFile.getPath())));
+    Compiler compiler = new Compiler();
+    Result result = compiler.compileModules(
+        ImmutableList.<SourceFile>of(), ImmutableList.of(module),
+        createOptions());
+    assertTrue(result.success);
+
+    Compiler expected = new Compiler();
+    expected.compile(ImmutableList.<SourceFile>of(), ImmutableList.of(file),
+        createOptions());
+    assertEquals(expected.toSource(), compiler.toSource());
+  }
+
+  public void testMissingAstFile() {
+    SourceFile file = SourceFile.fromCode("in.js", "var a;");
+    Compiler compiler = new Compiler();
+    compiler.initOptions(createOptions());
+    Node root = new SerializedAst(file, "does/not/exist.ast")
+        .getAstRoot(compiler);
+
+    assertFalse(root.hasChildren());
+    assertEquals(1, compiler.getErrorCount());
+    assertEquals(AbstractCompiler.READ_ERROR,
+        compiler.getErrors()[0].getType());
+  }
+
+  public void testForeignClass() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeInt(1);
+      out.writeObject(new URI("http://example.com/"));
+    }
+    SourceFile file = SourceFile.fromCode("in.js", "var a;");
+    try {
+      SerializedAst.readAst(
+          new ByteArrayInputStream(bytes.toByteArray()), file);
+      fail("Expected an InvalidClassException");
+    } catch (InvalidClassException e) {
+      assertEquals("java.net.URI", e.classname);
+    }
+
+    File astFile = File.createTempFile("input", ".js.ast");
+    astFile.deleteOnExit();
+    try (OutputStream out = new FileOutputStream(astFile)) {
+      bytes.writeTo(out);
+    }
+    Compiler compiler = new Compiler();
+    compiler.initOptions(createOptions());
+    Node root = new SerializedAst(file, astFile.getPath())
+        .getAstRoot(compiler);
+
+    assertFalse(root.hasChildren());
+    assertEquals(1, compiler.getErrorCount());
+    assertEquals(AbstractCompiler.READ_ERROR,
+        compiler.getErrors()[0].getType());
+  }
+
+  private static Node parse(SourceFile file) {
+    Compiler compiler = new Compiler();
+    compiler.initOptions(createOptions());
+    return new JsAst(file).getAstRoot(compiler);
+  }
+
+  private static byte[] write(Node root) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    SerializedAst.writeAst(root, out);
+    return out.toByteArray();
+  }
+
+  private static CompilerOptions createOptions() {
+    CompilerOptions options = new CompilerOptions();
+    CompilationLevel.SIMPLE_OPTIMIZATIONS.setOptionsForCompilationLevel(
+        options);
+    return options;
+  }
+}
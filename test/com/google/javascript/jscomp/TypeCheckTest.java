@@ -4863,6 +4863,23 @@ public final class TypeCheckTest extends CompilerTypeTestCase {
         "required: Date");
   }
 
+  public void testVarWithCfgPrefetchThreads() throws Exception {
+    compiler.getOptions().setNumCfgPrefetchThreads(2);
+    StringBuilder js = new StringBuilder("var ns = {};");
+    for (int i = 0; i < 20; i++) {
+      js.append("function f" + i + "(x) { if (x) { return x; } return 0; }");
+    }
+    js.append(
+        "(function() {"
+        + "  /** @param {number} x */ ns.method = function(x) {};"
+        + "})();"
+        + "function g() { ns.method('str'); }");
+    testTypes(js.toString(),
+        "actual parameter 1 of ns.method does not match formal parameter\n"
+        + "found   : string\n"
+        + "required: number");
+  }
+
   public void testVar7() throws Exception {
     testTypes("/** @type {number} */var a, b;",
         "declaration of multiple variables with shared type information");
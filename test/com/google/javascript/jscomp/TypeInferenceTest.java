@@ -977,20 +977,23 @@ public final class TypeInferenceTest extends TestCase {
     verify("out2", STRING_OBJECT_TYPE);
   }
 
+  // More slots than fit in one level of the flow scope slot trie.
+  private static final int MANY_SLOTS = 251;
+
   public void testFlattening() {
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    for (int i = 0; i < MANY_SLOTS; i++) {
       assuming("s" + i, ALL_TYPE);
     }
     assuming("b", JSTypeNative.BOOLEAN_TYPE);
     StringBuilder body = new StringBuilder();
     body.append("if (b) {");
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    for (int i = 0; i < MANY_SLOTS; i++) {
       body.append("s");
       body.append(i);
       body.append(" = 1;\n");
     }
     body.append(" } else { ");
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    for (int i = 0; i < MANY_SLOTS; i++) {
       body.append("s");
       body.append(i);
       body.append(" = 'ONE';\n");
@@ -999,7 +1002,7 @@ public final class TypeInferenceTest extends TestCase {
     JSType numberORString = createUnionType(NUMBER_TYPE, STRING_TYPE);
     inFunction(body.toString());
 
-    for (int i = 0; i < LinkedFlowScope.MAX_DEPTH + 1; i++) {
+    for (int i = 0; i < MANY_SLOTS; i++) {
       verify("s" + i, numberORString);
     }
   }
@@ -22,12 +22,15 @@ import static com.google.javascript.rhino.jstype.JSTypeNative.NUMBER_TYPE;
 import static com.google.javascript.rhino.jstype.JSTypeNative.STRING_TYPE;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.TypeValidator.TypeMismatch;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.jstype.JSType;
 import com.google.javascript.rhino.jstype.JSTypeNative;
 import com.google.javascript.rhino.jstype.JSTypeRegistry;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -38,6 +41,7 @@ import java.util.List;
 public final class TypeValidatorTest extends CompilerTestCase {
 
   private Compiler compiler = null;
+  private boolean collectInvalidationErrors = false;
 
   public TypeValidatorTest() {
     enableTypeCheck();
@@ -56,12 +60,62 @@ public final class TypeValidatorTest extends CompilerTestCase {
 
   @Override public int getNumRepetitions() { return 1; }
 
+  @Override
+  protected CompilerOptions getOptions(CompilerOptions options) {
+    options = super.getOptions(options);
+    if (collectInvalidationErrors) {
+      options.setPropertyInvalidationErrors(
+          ImmutableMap.of("x", CheckLevel.ERROR));
+    }
+    return options;
+  }
+
   public void testBasicMismatch() throws Exception {
     testSame("/** @param {number} x */ function f(x) {} f('a');",
         TYPE_MISMATCH_WARNING);
     assertMismatches(ImmutableList.of(fromNatives(STRING_TYPE, NUMBER_TYPE)));
   }
 
+  public void testRepeatedMismatchRecordedOnce() throws Exception {
+    testSame(
+        "/** @param {number} x */ function f(x) {}"
+        + "/** @param {string} x @suppress {checkTypes} */"
+        + "function g(x) { f(x); }"
+        + "/** @param {string} x @suppress {checkTypes} */"
+        + "function h(x) { f(x); }");
+    assertMismatches(ImmutableList.of(fromNatives(STRING_TYPE, NUMBER_TYPE)));
+
+    // The suppressed warning is still available to later passes.
+    JSError error = compiler.getTypeMismatches().iterator().next().getSource();
+    assertEquals(TYPE_MISMATCH_WARNING, error.getType());
+    assertEquals(
+        "actual parameter 1 of f does not match formal parameter\n"
+        + "found   : string\n"
+        + "required: number",
+        error.description);
+  }
+
+  public void testRepeatedMismatchRecordedPerSiteForInvalidationErrors()
+      throws Exception {
+    collectInvalidationErrors = true;
+    testSame(
+        "/** @param {number} x */ function f(x) {}"
+        + "/** @param {string} x @suppress {checkTypes} */"
+        + "function g(x) { f(x); }"
+        + "/** @param {string} x @suppress {checkTypes} */"
+        + "function h(x) { f(x); }");
+    assertMismatches(ImmutableList.of(
+        fromNatives(STRING_TYPE, NUMBER_TYPE),
+        fromNatives(STRING_TYPE, NUMBER_TYPE)));
+
+    // Each call to f is listed as a separate site.
+    List<Integer> positions = new ArrayList<>();
+    for (TypeMismatch mismatch : compiler.getTypeMismatches()) {
+      positions.add(mismatch.getSource().getCharno());
+    }
+    assertEquals(2, ImmutableSet.copyOf(positions).size());
+  }
+
   public void testFunctionMismatch() throws Exception {
     testSame(
         "/** \n" +
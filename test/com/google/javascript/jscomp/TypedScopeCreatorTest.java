@@ -26,6 +26,7 @@ import static com.google.javascript.rhino.jstype.JSTypeNative.STRING_TYPE;
 import static com.google.javascript.rhino.jstype.JSTypeNative.UNKNOWN_TYPE;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
 import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.rhino.Node;
@@ -2154,6 +2155,41 @@ public final class TypedScopeCreatorTest extends CompilerTestCase {
     assertEquals("string", globalScope.getVar("e").getType().toString());
   }
 
+  public void testPatchGlobalScopeRedeclaresTypes() {
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(
+            SourceFile.fromCode("a.js",
+                "/** @constructor */ function Foo() {}"
+                + "/** @enum {number} */ var E = {A: 1};"),
+            SourceFile.fromCode("b.js", "var x = new Foo();")),
+        new CompilerOptions());
+    Node root = compiler.parseInputs();
+    JSTypeRegistry registry = compiler.getTypeRegistry();
+    TypedScopeCreator scopeCreator = new TypedScopeCreator(compiler);
+    TypedScope scope = scopeCreator.createScope(root, null);
+    JSType oldFoo = registry.getType("Foo");
+    assertNotNull(oldFoo);
+    assertNotNull(registry.getType("E"));
+
+    Node script = root.getLastChild().getFirstChild();
+    Node newScript = compiler.parseSyntheticCode("a.js",
+        "/** @constructor @param {string} s */ function Foo(s) {}");
+    script.removeChildren();
+    script.addChildrenToFront(newScript.removeChildren());
+    scopeCreator.patchGlobalScope(scope, script);
+
+    FunctionType newFoo = scope.getVar("Foo").getType().toMaybeFunctionType();
+    assertEquals("function (new:Foo, string): undefined", newFoo.toString());
+    assertNotSame(oldFoo, registry.getType("Foo"));
+    assertSame(newFoo.getInstanceType(), registry.getType("Foo"));
+    assertNull(registry.getType("E"));
+    assertNull(scope.getVar("E"));
+    assertEquals(0, compiler.getWarningCount());
+    assertEquals(0, compiler.getErrorCount());
+  }
+
   private JSType findNameType(final String name, TypedScope scope) {
     return findTypeOnMatchedNode(new Predicate<Node>() {
       @Override public boolean apply(Node n) {
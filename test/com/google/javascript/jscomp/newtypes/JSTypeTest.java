@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link JSType}.
+ */
+public final class JSTypeTest extends TestCase {
+
+  public void testJoinOfScalarsIsInterned() {
+    JSType t1 = JSType.join(JSType.NUMBER, JSType.TRUE_TYPE);
+    JSType t2 = JSType.join(JSType.TRUE_TYPE, JSType.NUMBER);
+    assertSame(t1, t2);
+  }
+
+  public void testJoinOfObjectsIsInterned() {
+    JSType obj = JSType.fromObjectType(ObjectType.TOP_OBJECT);
+    assertSame(obj, JSType.fromObjectType(ObjectType.TOP_OBJECT));
+
+    JSType t1 = JSType.join(obj, JSType.NULL);
+    JSType t2 = JSType.join(JSType.NULL, obj);
+    assertSame(t1, t2);
+    assertSame(t1, JSType.join(t1, JSType.NULL));
+
+    JSType t3 = JSType.join(t1, JSType.UNDEFINED);
+    assertSame(t3, JSType.join(JSType.join(obj, JSType.UNDEFINED), t1));
+  }
+
+  public void testTypesWithEqualButDistinctPartsAreNotShared() {
+    ObjectType loose = Iterables.getOnlyElement(
+        ObjectType.withLooseObjects(ImmutableSet.of(ObjectType.TOP_OBJECT)));
+    JSType t1 = JSType.fromObjectType(ObjectType.TOP_OBJECT);
+    JSType t2 = JSType.fromObjectType(loose);
+    assertEquals(t1, t2);
+    assertNotSame(t1, t2);
+    assertTrue(t2.isLoose());
+    assertEquals(t1.hashCode(), t2.hashCode());
+  }
+}
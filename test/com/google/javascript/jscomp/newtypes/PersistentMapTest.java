@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.newtypes;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link PersistentMap}.
+ */
+public final class PersistentMapTest extends TestCase {
+
+  public void testWithAndWithout() {
+    PersistentMap<String, Integer> empty = PersistentMap.create();
+    PersistentMap<String, Integer> m1 = empty.with("a", 1);
+    PersistentMap<String, Integer> m2 = m1.with("b", 2).with("a", 3);
+
+    assertTrue(empty.isEmpty());
+    assertEquals(1, m1.size());
+    assertEquals(Integer.valueOf(1), m1.get("a"));
+    assertEquals(2, m2.size());
+    assertEquals(Integer.valueOf(3), m2.get("a"));
+    assertEquals(Integer.valueOf(2), m2.get("b"));
+
+    PersistentMap<String, Integer> m3 = m2.without("a");
+    assertEquals(1, m3.size());
+    assertFalse(m3.containsKey("a"));
+    assertEquals(Integer.valueOf(3), m2.get("a"));
+    assertSame(m3, m3.without("a"));
+    assertTrue(m3.without("b").isEmpty());
+  }
+
+  public void testWithSameValueReturnsSameMap() {
+    Integer one = 1;
+    PersistentMap<String, Integer> m = PersistentMap.of("a", one);
+    assertSame(m, m.with("a", one));
+  }
+
+  public void testNullValues() {
+    PersistentMap<String, Integer> m = PersistentMap.of("a", null);
+    assertEquals(1, m.size());
+    assertTrue(m.containsKey("a"));
+    assertNull(m.get("a"));
+    assertSame(m, m.with("a", null));
+    assertEquals(Integer.valueOf(1), m.with("a", 1).get("a"));
+    assertTrue(m.without("a").isEmpty());
+
+    PersistentMap<String, Integer> m2 =
+        m.toBuilder().put("b", null).put("a", 2).build();
+    assertEquals(2, m2.size());
+    assertTrue(m2.containsKey("b"));
+    assertNull(m2.get("b"));
+    assertEquals(Integer.valueOf(2), m2.get("a"));
+  }
+
+  public void testCollidingKeys() {
+    // "Aa" and "BB" have the same hash code.
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    PersistentMap<String, Integer> m =
+        PersistentMap.<String, Integer>create().with("Aa", 1).with("BB", 2);
+    assertEquals(Integer.valueOf(1), m.get("Aa"));
+    assertEquals(Integer.valueOf(2), m.get("BB"));
+    m = m.without("Aa");
+    assertEquals(1, m.size());
+    assertEquals(Integer.valueOf(2), m.get("BB"));
+    assertNull(m.get("Aa"));
+  }
+
+  public void testBuilderDoesNotChangeOriginal() {
+    PersistentMap<String, Integer> m =
+        PersistentMap.<String, Integer>create().with("a", 1).with("b", 2);
+    PersistentMap.Builder<String, Integer> builder = m.toBuilder();
+    builder.put("a", 3).put("c", 4).remove("b");
+    PersistentMap<String, Integer> m2 = builder.build();
+
+    assertEquals(2, m.size());
+    assertEquals(Integer.valueOf(1), m.get("a"));
+    assertEquals(Integer.valueOf(2), m.get("b"));
+    assertEquals(2, m2.size());
+    assertEquals(Integer.valueOf(3), m2.get("a"));
+    assertEquals(Integer.valueOf(4), m2.get("c"));
+    assertFalse(m2.containsKey("b"));
+
+    try {
+      builder.put("d", 5);
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  public void testRandomChangesAgreeWithHashMap() {
+    Random random = new Random(0);
+    for (int round = 0; round < 200; round++) {
+      Map<String, Integer> expected = new HashMap<>();
+      PersistentMap<String, Integer> m = PersistentMap.create();
+      PersistentMap.Builder<String, Integer> builder = PersistentMap.builder();
+      for (int i = 0; i < 500; i++) {
+        String key = "k" + random.nextInt(300);
+        if (random.nextInt(4) == 0) {
+          expected.remove(key);
+          m = m.without(key);
+          builder.remove(key);
+        } else {
+          expected.put(key, i);
+          m = m.with(key, i);
+          builder.put(key, i);
+        }
+      }
+      PersistentMap<String, Integer> built = builder.build();
+      assertEquals(expected, m);
+      assertEquals(expected, built);
+      assertEquals(expected.size(), m.size());
+      assertEquals(expected.size(), built.size());
+      for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+        assertEquals(entry.getValue(), m.get(entry.getKey()));
+        assertEquals(entry.getValue(), built.get(entry.getKey()));
+      }
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.parsing.Config.LanguageMode;
 import com.google.javascript.jscomp.parsing.ParserRunner.ParseResult;
 import com.google.javascript.rhino.JSDocInfo;
+import com.google.javascript.rhino.LazyJSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.SimpleSourceFile;
 import com.google.javascript.rhino.StaticSourceFile;
@@ -259,6 +260,29 @@ public final class NewParserTest extends BaseJSTypeTestCase {
     assertThat(name.getCharno()).isEqualTo(5);
   }
 
+  public void testLinenoCharnoLineTerminators() throws Exception {
+    mode = LanguageMode.ECMASCRIPT6;
+    Node script = parse("a;\r\nb;\rc;\u2028 d;\n\n\n  f((x) => x,\n y);");
+
+    Node stmt = script.getFirstChild();
+    for (int lineno = 1; lineno <= 3; lineno++) {
+      assertThat(stmt.getLineno()).isEqualTo(lineno);
+      assertThat(stmt.getCharno()).isEqualTo(0);
+      stmt = stmt.getNext();
+    }
+    assertThat(stmt.getLineno()).isEqualTo(4);
+    assertThat(stmt.getCharno()).isEqualTo(1);
+
+    // The parser backtracks over the arrow function's parameters.
+    Node call = stmt.getNext().getFirstChild();
+    Node arrow = call.getFirstChild().getNext();
+    assertThat(arrow.getType()).isEqualTo(Token.FUNCTION);
+    assertThat(arrow.getLineno()).isEqualTo(7);
+    assertThat(arrow.getCharno()).isEqualTo(4);
+    assertThat(arrow.getNext().getLineno()).isEqualTo(8);
+    assertThat(arrow.getNext().getCharno()).isEqualTo(1);
+  }
+
   public void testLinenoCharnoGetProp2() throws Exception {
     Node getprop = parse("\n foo.\nbar").getFirstChild().getFirstChild();
 
@@ -846,6 +870,89 @@ public final class NewParserTest extends BaseJSTypeTestCase {
             "Bad type annotation. expecting a variable name in a @param tag"));
   }
 
+  public void testNoJSDocWarningsAfterLaterSyntaxError() throws Exception {
+    // The first statement is transformed before the syntax error in the
+    // second one is found, but its warnings are dropped with the AST.
+    assertNull(parseError(
+        "/** @param {bool!*%E$} */ C.prototype.say = function(nums) {};"
+        + "if (a > b)\nelse c = d",
+        "primary expression expected"));
+  }
+
+  public void testLazyJSDoc() throws Exception {
+    TestErrorReporter testErrorReporter = new TestErrorReporter(null,
+        new String[] {
+            "Bad type annotation. expected closing }",
+            "Bad type annotation. expecting a variable name in a @param tag"});
+    Node script = ParserRunner.parse(
+        new SimpleSourceFile("input", false),
+        "/** @param {number} x */ function f(x) {}"
+        + "/** @const */ var a = 1;"
+        + "/** @type {number} */ (b);"
+        + "/** @param {bool!*%E$} */ function g(nums) {}",
+        ParserRunner.createConfig(
+            isIdeMode, false, false, true, mode, null),
+        testErrorReporter).ast;
+
+    Node f = script.getFirstChild();
+    assertThat(f.getProp(Node.JSDOC_INFO_PROP))
+        .isInstanceOf(LazyJSDocInfo.class);
+    assertTrue(f.getJSDocInfo().hasParameterType("x"));
+
+    // Annotations needed while parsing are parsed right away.
+    Node var = f.getNext();
+    assertThat(var.getProp(Node.JSDOC_INFO_PROP))
+        .isInstanceOf(JSDocInfo.class);
+    assertTrue(var.getJSDocInfo().isConstant());
+    assertNode(var.getNext().getFirstChild()).hasType(Token.CAST);
+
+    // Warnings are only reported once the comment is parsed.
+    Node g = var.getNext().getNext();
+    assertThat(g.getProp(Node.JSDOC_INFO_PROP))
+        .isInstanceOf(LazyJSDocInfo.class);
+    testErrorReporter.assertHasEncounteredAllErrors();
+    assertNull(g.getJSDocInfo());
+    testErrorReporter.assertHasEncounteredAllWarnings();
+  }
+
+  public void testBulkMode() throws Exception {
+    TestErrorReporter testErrorReporter = new TestErrorReporter(null, null);
+    ParseResult result = ParserRunner.parse(
+        new SimpleSourceFile("input", false),
+        "/** @const */ var a = [1, 'b', {c: /** @type {number} */ (d)}];\n"
+        + "/** @param {bool!*%E$} */ function f(x) {} // done",
+        ParserRunner.createBulkConfig(mode),
+        testErrorReporter);
+    testErrorReporter.assertHasEncounteredAllErrors();
+    testErrorReporter.assertHasEncounteredAllWarnings();
+
+    Node script = result.ast;
+    assertNodeEquality(
+        parse("var a = [1, 'b', {c: (d)}];\nfunction f(x) {}"), script);
+    assertNull(script.getFirstChild().getJSDocInfo());
+    assertNull(script.getLastChild().getJSDocInfo());
+    assertThat(result.comments).isEmpty();
+  }
+
+  public void testBulkModeKeepsLicenses() throws Exception {
+    TestErrorReporter testErrorReporter = new TestErrorReporter(null, null);
+    ParseResult result = ParserRunner.parse(
+        new SimpleSourceFile("input", false),
+        "/** @license Foo */\n"
+        + "/* @preserve Not JSDoc */ /** @const */ var a = 1;\n"
+        + "/** @preserve Bar */ var b = 2;",
+        ParserRunner.createBulkConfig(mode),
+        testErrorReporter);
+    testErrorReporter.assertHasEncounteredAllErrors();
+    testErrorReporter.assertHasEncounteredAllWarnings();
+
+    Node script = result.ast;
+    assertNotNull(script.getJSDocInfo());
+    assertThat(script.getJSDocInfo().getLicense()).isEqualTo(" Foo  Bar ");
+    assertNull(script.getFirstChild().getJSDocInfo());
+    assertNull(script.getLastChild().getJSDocInfo());
+  }
+
   public void testIncorrectJSDocDoesNotAlterJSParsing7() throws Exception {
     isIdeMode = true;
 
@@ -2055,6 +2162,23 @@ public final class NewParserTest extends BaseJSTypeTestCase {
     parse("Js\\u0043ompiler");
   }
 
+  public void testMultipleUnicodeEscapesInIdentifier() {
+    Node script = parse("var Js\\u0043\\u{43}ompiler\\u0073;");
+    assertEquals("JsCCompilers",
+        script.getFirstChild().getFirstChild().getString());
+  }
+
+  public void testManyIdentifiers() {
+    StringBuilder js = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      js.append("var v" + i + " = v" + (i / 2) + ";\n");
+    }
+    Node script = parse(js.toString());
+    Node name = script.getChildAtIndex(999).getFirstChild();
+    assertEquals("v999", name.getString());
+    assertEquals("v499", name.getFirstChild().getString());
+  }
+
   public void testUnicodePointEscapeInIdentifiers() {
     parse("var \\u{0043}");
     parse("Js\\u{0043}ompiler");
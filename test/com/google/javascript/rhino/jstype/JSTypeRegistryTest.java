@@ -38,6 +38,7 @@
 
 package com.google.javascript.rhino.jstype;
 
+import com.google.common.collect.ImmutableList;
 import com.google.javascript.rhino.testing.Asserts;
 
 import junit.framework.TestCase;
@@ -84,6 +85,120 @@ public class JSTypeRegistryTest extends TestCase {
     assertFalse(typeRegistry.getGreatestSubtypeWithProperty(type, "foo").isUnknownType());
   }
 
+  public void testEachReferenceTypeWithProperty() {
+    JSTypeRegistry typeRegistry = new JSTypeRegistry(null);
+    ObjectType a = typeRegistry.createObjectType("A", null);
+    ObjectType b = typeRegistry.createObjectType("B", null);
+    typeRegistry.registerPropertyOnType("foo", a);
+    typeRegistry.registerPropertyOnType("foo", b);
+    typeRegistry.registerPropertyOnType("foo", a);
+    typeRegistry.registerPropertyOnType("bar", b);
+
+    assertEquals(ImmutableList.of(a, b),
+        ImmutableList.copyOf(
+            typeRegistry.getEachReferenceTypeWithProperty("foo")));
+    assertEquals(ImmutableList.of(b),
+        ImmutableList.copyOf(
+            typeRegistry.getEachReferenceTypeWithProperty("bar")));
+    assertTrue(typeRegistry.canPropertyBeDefined(a, "foo"));
+    assertFalse(typeRegistry.canPropertyBeDefined(a, "bar"));
+
+    typeRegistry.unregisterPropertyOnType("foo", a);
+    assertEquals(ImmutableList.of(b),
+        ImmutableList.copyOf(
+            typeRegistry.getEachReferenceTypeWithProperty("foo")));
+    typeRegistry.registerPropertyOnType("foo", a);
+    assertEquals(ImmutableList.of(a, b),
+        ImmutableList.copyOf(
+            typeRegistry.getEachReferenceTypeWithProperty("foo")));
+  }
+
+  public void testSubtypeCacheInvalidatedByPrototypeChange() {
+    JSTypeRegistry typeRegistry = new JSTypeRegistry(null);
+    FunctionType base = typeRegistry.createConstructorType(
+        "Base", null, null, null, null);
+    FunctionType sub = typeRegistry.createConstructorType(
+        "Sub", null, null, null, null);
+    ObjectType baseInstance = base.getInstanceType();
+    ObjectType subInstance = sub.getInstanceType();
+
+    assertFalse(subInstance.isSubtype(baseInstance));
+    assertEquals(Boolean.FALSE,
+        typeRegistry.getCachedSubtype(subInstance, baseInstance));
+
+    sub.setPrototypeBasedOn(baseInstance);
+    assertNull(typeRegistry.getCachedSubtype(subInstance, baseInstance));
+    assertTrue(subInstance.isSubtype(baseInstance));
+    assertFalse(baseInstance.isSubtype(subInstance));
+  }
+
+  public void testSubtypeCacheInvalidatedByImplementedInterfaces() {
+    JSTypeRegistry typeRegistry = new JSTypeRegistry(null);
+    FunctionType iface = typeRegistry.createInterfaceType(
+        "Iface", null, null, false);
+    FunctionType impl = typeRegistry.createConstructorType(
+        "Impl", null, null, null, null);
+
+    assertFalse(impl.getInstanceType().isSubtype(iface.getInstanceType()));
+    impl.setImplementedInterfaces(
+        ImmutableList.of(iface.getInstanceType()));
+    assertTrue(impl.getInstanceType().isSubtype(iface.getInstanceType()));
+  }
+
+  public void testStructuralSubtypesNotCached() {
+    JSTypeRegistry typeRegistry = new JSTypeRegistry(null);
+    FunctionType record = typeRegistry.createInterfaceType(
+        "Rec", null, null, false);
+    record.setImplicitMatch(true);
+    FunctionType impl = typeRegistry.createConstructorType(
+        "Impl", null, null, null, null);
+    ObjectType implInstance = impl.getInstanceType();
+
+    implInstance.isSubtype(record.getInstanceType());
+    assertNull(typeRegistry.getCachedSubtype(
+        implInstance, record.getInstanceType()));
+  }
+
+  public void testUndeclareTypeRetractsPropertyOwners() {
+    JSTypeRegistry typeRegistry = new JSTypeRegistry(null);
+    FunctionType foo = typeRegistry.createConstructorType(
+        "Foo", null, null, null, null);
+    FunctionType bar = typeRegistry.createConstructorType(
+        "Bar", null, null, null, null);
+    ObjectType fooInstance = foo.getInstanceType();
+    ObjectType barInstance = bar.getInstanceType();
+    typeRegistry.declareType("Foo", fooInstance);
+    typeRegistry.declareType("Bar", barInstance);
+    typeRegistry.registerPropertyOnType("x", fooInstance);
+    typeRegistry.registerPropertyOnType("x", barInstance);
+    typeRegistry.registerPropertyOnType("y", foo.getPrototype());
+    assertFalse(fooInstance.isSubtype(barInstance));
+    assertEquals(Boolean.FALSE,
+        typeRegistry.getCachedSubtype(fooInstance, barInstance));
+
+    typeRegistry.undeclareType("Foo");
+
+    assertNull(typeRegistry.getType("Foo"));
+    assertNull(typeRegistry.getCachedSubtype(fooInstance, barInstance));
+    assertEquals(ImmutableList.of(barInstance),
+        ImmutableList.copyOf(
+            typeRegistry.getEachReferenceTypeWithProperty("x")));
+    assertTrue(typeRegistry.getGreatestSubtypeWithProperty(
+        fooInstance, "x").isEmptyType());
+    assertTrue(typeRegistry.getGreatestSubtypeWithProperty(
+        foo.getPrototype(), "y").isEmptyType());
+    assertTrue(typeRegistry.canPropertyBeDefined(barInstance, "x"));
+
+    // A new type with the same name is indexed afresh.
+    FunctionType newFoo = typeRegistry.createConstructorType(
+        "Foo", null, null, null, null);
+    typeRegistry.declareType("Foo", newFoo.getInstanceType());
+    typeRegistry.registerPropertyOnType("x", newFoo.getInstanceType());
+    assertEquals(ImmutableList.of(newFoo.getInstanceType(), barInstance),
+        ImmutableList.copyOf(
+            typeRegistry.getEachReferenceTypeWithProperty("x")));
+  }
+
   private void assertTypeEquals(JSType a, JSType b) {
     Asserts.assertTypeEquals(a, b);
   }
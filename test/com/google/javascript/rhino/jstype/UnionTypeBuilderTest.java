@@ -38,6 +38,7 @@
 
 package com.google.javascript.rhino.jstype;
 
+import com.google.common.collect.ImmutableList;
 import com.google.javascript.rhino.testing.BaseJSTypeTestCase;
 
 /**
@@ -120,6 +121,60 @@ public class UnionTypeBuilderTest extends BaseJSTypeTestCase {
     assertEquals("(Error|function (): Error)", union.toString());
   }
 
+  public void testLargeUnionOfNominalTypes() {
+    ObjectType[] types = new ObjectType[12];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = registry.createConstructorType(
+          "C" + i, null, null, null, null).getInstanceType();
+    }
+    FunctionType sub = registry.createConstructorType(
+        "Sub", null, null, null, null);
+    sub.setPrototypeBasedOn(types[3]);
+    FunctionType iface = registry.createInterfaceType(
+        "Iface", null, null, false);
+    types[5].getConstructor().setImplementedInterfaces(
+        ImmutableList.of(iface.getInstanceType()));
+
+    UnionTypeBuilder builder = new UnionTypeBuilder(registry, 100);
+    for (ObjectType type : types) {
+      builder.addAlternate(type);
+    }
+    // Subtypes of an alternate are dropped, and so are duplicates.
+    builder.addAlternate(sub.getInstanceType());
+    builder.addAlternate(types[7]);
+    assertEquals(
+        "(C0|C1|C10|C11|C2|C3|C4|C5|C6|C7|C8|C9)", builder.build().toString());
+
+    // Supertypes of alternates replace them.
+    builder.addAlternate(iface.getInstanceType());
+    builder.addAlternate(OBJECT_TYPE);
+    assertEquals("Object", builder.build().toString());
+  }
+
+  public void testLargeUnionAfterTypeChange() {
+    ObjectType[] types = new ObjectType[10];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = registry.createConstructorType(
+          "C" + i, null, null, null, null).getInstanceType();
+    }
+    FunctionType sub = registry.createConstructorType(
+        "Sub", null, null, null, null);
+
+    UnionTypeBuilder builder = new UnionTypeBuilder(registry, 100);
+    for (ObjectType type : types) {
+      builder.addAlternate(type);
+    }
+    builder.addAlternate(sub.getInstanceType());
+
+    // Sub gets a supertype after it was indexed.
+    FunctionType base = registry.createConstructorType(
+        "Base", null, null, null, null);
+    sub.setPrototypeBasedOn(base.getInstanceType());
+    builder.addAlternate(base.getInstanceType());
+    assertEquals(
+        "(Base|C0|C1|C2|C3|C4|C5|C6|C7|C8|C9)", builder.build().toString());
+  }
+
   public void assertUnion(String expected, JSType ... types) {
     UnionTypeBuilder builder = new UnionTypeBuilder(registry);
     for (JSType type : types) {